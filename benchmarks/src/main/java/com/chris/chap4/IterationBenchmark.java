@@ -0,0 +1,137 @@
+package com.chris.chap4;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * This is description.
+ * Listing 4.1 (for-each), 4.2 (explicit Iterator) and 4.3 (stream map/collect), plus parallelStream, each
+ * collecting the dish names of a menu of `size` dishes held in an ArrayList, a LinkedList or an array.
+ * Throughput mode gives operations per second; SampleTime mode gives the latency percentiles (p50, p90,
+ * p99, ...). Run with -prof gc for the allocation rate, e.g.
+ * java -jar target/benchmarks.jar IterationBenchmark -prof gc -p size=10,1000 -p source=ArrayList
+ * The 10^8 sizes need the 8g heap set in @Fork, a LinkedList of 10^8 dishes alone takes about 2.4GB.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 19:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class IterationBenchmark {
+    private static final List<Dish> MENU = Arrays.asList(
+            new Dish("pork", false, 800, Dish.Type.MEAT),
+            new Dish("beef", false, 700, Dish.Type.MEAT),
+            new Dish("chicken", false, 400, Dish.Type.MEAT),
+            new Dish("french fries", true, 530, Dish.Type.OTHER),
+            new Dish("rice", true, 350, Dish.Type.OTHER),
+            new Dish("season fruit", true, 120, Dish.Type.OTHER),
+            new Dish("pizza", true, 550, Dish.Type.OTHER),
+            new Dish("prawns", false, 300, Dish.Type.FISH),
+            new Dish("salmon", false, 450, Dish.Type.FISH));
+
+    @Param({"10", "1000", "100000", "10000000", "100000000"})
+    private int size;
+
+    @Param({"ArrayList", "LinkedList", "array"})
+    private String source;
+
+    private List<Dish> list;
+    private Dish[] array;
+    private boolean arraySource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        array = new Dish[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = MENU.get(i % MENU.size());
+        }
+        arraySource = "array".equals(source);
+        switch (source) {
+            case "ArrayList":
+                list = new ArrayList<>(Arrays.asList(array));
+                break;
+            case "LinkedList":
+                list = new LinkedList<>(Arrays.asList(array));
+                break;
+            case "array":
+                // the array is iterated directly, the list view is for the Iterator and stream() variants
+                list = Arrays.asList(array);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown source: " + source);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        list = null;
+        array = null;
+    }
+
+    // Listing 4.1. Collections: external iteration with a for-each loop
+    @Benchmark
+    public List<String> forEach() {
+        List<String> names = new ArrayList<>();
+        if (arraySource) {
+            for (Dish dish : array) {
+                names.add(dish.getName());
+            }
+        } else {
+            for (Dish dish : list) {
+                names.add(dish.getName());
+            }
+        }
+        return names;
+    }
+
+    // Listing 4.2. Collections: external iteration using an iterator behind the scenes
+    @Benchmark
+    public List<String> iterator() {
+        List<String> names = new ArrayList<>();
+        Iterator<Dish> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            Dish dish = iterator.next();
+            names.add(dish.getName());
+        }
+        return names;
+    }
+
+    // Listing 4.3. Streams: internal iteration
+    @Benchmark
+    public List<String> stream() {
+        return arraySource
+                ? Arrays.stream(array).map(Dish::getName).collect(toList())
+                : list.stream().map(Dish::getName).collect(toList());
+    }
+
+    @Benchmark
+    public List<String> parallelStream() {
+        return arraySource
+                ? Arrays.stream(array).parallel().map(Dish::getName).collect(toList())
+                : list.parallelStream().map(Dish::getName).collect(toList());
+    }
+}
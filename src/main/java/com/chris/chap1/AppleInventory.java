@@ -0,0 +1,176 @@
+package com.chris.chap1;
+
+import com.chris.chap1.FilteringApples.Apple;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * This is description.
+ * A columnar apple inventory: weights live in an int[] and colors in a dictionary-encoded byte[],
+ * so filters run as primitive loops and return a selection bitmap instead of copying apples.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 9:12
+ */
+public class AppleInventory {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_COLORS = 256;
+
+    private int[] weights;
+    private byte[] colors;
+    private int size;
+
+    // dictionary: color code -> color, color -> color code
+    private final List<String> colorDictionary = new ArrayList<>();
+    private final Map<String, Byte> colorCodes = new HashMap<>();
+
+    public AppleInventory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AppleInventory(int initialCapacity) {
+        this.weights = new int[Math.max(initialCapacity, 1)];
+        this.colors = new byte[Math.max(initialCapacity, 1)];
+    }
+
+    public static AppleInventory of(List<Apple> apples) {
+        AppleInventory inventory = new AppleInventory(apples.size());
+        for (Apple apple : apples) {
+            inventory.add(apple);
+        }
+        return inventory;
+    }
+
+    public int add(Apple apple) {
+        return add(apple.getWeight(), apple.getColor());
+    }
+
+    public int add(int weight, String color) {
+        if (size == weights.length) {
+            int newCapacity = weights.length + (weights.length >> 1) + 1;
+            weights = Arrays.copyOf(weights, newCapacity);
+            colors = Arrays.copyOf(colors, newCapacity);
+        }
+        weights[size] = weight;
+        colors[size] = encode(color);
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getWeight(int row) {
+        checkRow(row);
+        return weights[row];
+    }
+
+    public String getColor(int row) {
+        checkRow(row);
+        return decode(colors[row]);
+    }
+
+    public Apple get(int row) {
+        checkRow(row);
+        return new Apple(weights[row], decode(colors[row]));
+    }
+
+    /**
+     * Columnar counterpart of Apple::isGreenApple.
+     */
+    public BitSet selectGreenApples() {
+        return selectByColor("green");
+    }
+
+    /**
+     * Columnar counterpart of Apple::isHeavyApple.
+     */
+    public BitSet selectHeavyApples() {
+        return selectByWeight(weight -> weight > 150);
+    }
+
+    public BitSet selectByColor(String color) {
+        BitSet selection = new BitSet(size);
+        Byte code = colorCodes.get(color);
+        if (code == null) {
+            return selection;
+        }
+        byte c = code;
+        byte[] colors = this.colors;
+        for (int i = 0; i < size; i++) {
+            if (colors[i] == c) {
+                selection.set(i);
+            }
+        }
+        return selection;
+    }
+
+    public BitSet selectByWeight(IntPredicate p) {
+        BitSet selection = new BitSet(size);
+        int[] weights = this.weights;
+        for (int i = 0; i < size; i++) {
+            if (p.test(weights[i])) {
+                selection.set(i);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Adapter for the existing Predicate<Apple> filters, e.g. Apple::isGreenApple.
+     * A single flyweight Apple is reused for every row, so no apple is allocated per row.
+     */
+    public BitSet select(Predicate<Apple> p) {
+        BitSet selection = new BitSet(size);
+        Apple flyweight = new Apple();
+        for (int i = 0; i < size; i++) {
+            flyweight.setWeight(weights[i]);
+            flyweight.setColor(colorDictionary.get(colors[i] & 0xFF));
+            if (p.test(flyweight)) {
+                selection.set(i);
+            }
+        }
+        return selection;
+    }
+
+    public static int[] toRowIds(BitSet selection) {
+        return selection.stream().toArray();
+    }
+
+    public List<Apple> toList(BitSet selection) {
+        List<Apple> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    public List<Apple> filterApples(Predicate<Apple> p) {
+        return toList(select(p));
+    }
+
+    private byte encode(String color) {
+        Byte code = colorCodes.get(color);
+        if (code == null) {
+            if (colorDictionary.size() == MAX_COLORS) {
+                throw new IllegalStateException("Too many distinct colors: " + MAX_COLORS);
+            }
+            code = (byte) colorDictionary.size();
+            colorDictionary.add(color);
+            colorCodes.put(color, code);
+        }
+        return code;
+    }
+
+    private String decode(byte code) {
+        return colorDictionary.get(code & 0xFF);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+    }
+}
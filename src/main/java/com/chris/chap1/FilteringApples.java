@@ -56,6 +56,14 @@ public class FilteringApples {
                 .filter((Apple a) -> a.getWeight() > 150)
                 .collect(toList());
         System.out.println(heavyApples3);
+        System.out.println("------------------------");
+        // Columnar inventory: weights in an int[], colors in a dictionary-encoded byte[]
+        AppleInventory appleInventory = AppleInventory.of(inventory);
+        BitSet heavySelection = appleInventory.selectHeavyApples();
+        // heavy rows: [2]
+        System.out.println("heavy rows: " + Arrays.toString(AppleInventory.toRowIds(heavySelection)));
+        // [Apple{weight=80, color='green'}, Apple{weight=155, color='green'}]
+        System.out.println(filterApples(appleInventory, Apple::isGreenApple));
     }
 
     public static List<Apple> filterGreenApples(List<Apple> inventory) {
@@ -88,6 +96,10 @@ public class FilteringApples {
         return result;
     }
 
+    public static List<Apple> filterApples(AppleInventory inventory, Predicate<Apple> p) {
+        return inventory.filterApples(p);
+    }
+
     public static class Apple {
 
         private int weight = 0;
@@ -2,6 +2,10 @@ package com.chris.chap1;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 /**
  * This is description.
@@ -10,7 +14,7 @@ import java.io.FileFilter;
  * @date 2019/6/4 7:02
  */
 public class HiddenFile {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         File[] hiddenFiles = new File("C:\\Users\\75756\\Desktop\\Java8 实战\\HiddenFile").listFiles(new FileFilter() {
             @Override
             public boolean accept(File file) {
@@ -26,5 +30,10 @@ public class HiddenFile {
         for (File hiddenFile : hiddenFiles2) {
             System.out.println(hiddenFile.getPath());
         }
+
+        // streaming and recursive, with a bounded pool of workers; close the stream like Files.walk
+        try (Stream<Path> hiddenPaths = HiddenFileScanner.hiddenFiles(Paths.get("C:\\Users\\75756\\Desktop\\Java8 实战\\HiddenFile"))) {
+            hiddenPaths.limit(10).forEach(System.out::println);
+        }
     }
 }
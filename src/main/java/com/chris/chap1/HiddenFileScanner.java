@@ -0,0 +1,205 @@
+package com.chris.chap1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * A streaming, parallel alternative to new File(dir).listFiles(File::isHidden): directories are read with
+ * DirectoryStream by a bounded pool of workers, the attributes of each entry are read once in bulk through
+ * Files.readAttributes, and hidden paths are handed to a Stream<Path> as they are found.
+ * The workers steal work: a worker pushes the subdirectories it finds onto its own deque and scans the latest
+ * first, so the walk is depth-first per worker and the pending directories stay few even in very wide trees.
+ * Entries and directories that can't be read are skipped.
+ * Like Files.walk, the returned stream must be closed (try-with-resources), which also stops the workers
+ * when the consumer terminates early.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 13:40
+ */
+public class HiddenFileScanner {
+    private static final boolean WINDOWS = File.separatorChar == '\\';
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final Object END = new Object();
+
+    private final int maxDepth;
+    private final BlockingQueue<Object> results;
+    private final AtomicInteger pendingDirectories = new AtomicInteger();
+    private final ForkJoinPool pool;
+    private volatile boolean closed;
+
+    private HiddenFileScanner(int maxDepth, int workers, int bufferSize) {
+        this.maxDepth = maxDepth;
+        this.results = new ArrayBlockingQueue<>(bufferSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // worker threads are daemons; LIFO deques for a depth-first walk
+        this.pool = new ForkJoinPool(workers, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("hidden-file-scanner-" + threadNumber.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Hidden files and directories anywhere below root.
+     */
+    public static Stream<Path> hiddenFiles(Path root) throws IOException {
+        return hiddenFiles(root, Integer.MAX_VALUE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxDepth 1 lists only the entries of root itself, like File.listFiles
+     * @param workers  number of threads reading directories
+     */
+    public static Stream<Path> hiddenFiles(Path root, int maxDepth, int workers) throws IOException {
+        if (maxDepth < 1 || workers < 1) {
+            throw new IllegalArgumentException("maxDepth and workers must be positive");
+        }
+        if (!Files.isDirectory(root)) {
+            throw new NotDirectoryException(root.toString());
+        }
+        HiddenFileScanner scanner = new HiddenFileScanner(maxDepth, workers, DEFAULT_BUFFER_SIZE);
+        scanner.pendingDirectories.incrementAndGet();
+        scanner.pool.execute(scanner.new ScanTask(root, 1));
+        return StreamSupport.stream(scanner.spliterator(), false).onClose(scanner::close);
+    }
+
+    /**
+     * Scans one directory; its subdirectories are forked, not joined, the pending count tells when all are done.
+     */
+    private class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final int depth;
+
+        ScanTask(Path directory, int depth) {
+            this.directory = directory;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                scanDirectory(directory, depth);
+            } finally {
+                if (pendingDirectories.decrementAndGet() == 0) {
+                    emit(END);
+                }
+            }
+        }
+    }
+
+    private void scanDirectory(Path directory, int depth) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (closed) {
+                    return;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = readAttributes(entry);
+                } catch (IOException e) {
+                    // deleted since listed, or not readable: skip the entry, not the rest of the directory
+                    continue;
+                }
+                if (isHidden(entry, attributes)) {
+                    emit(entry);
+                }
+                if (attributes.isDirectory() && depth < maxDepth) {
+                    pendingDirectories.incrementAndGet();
+                    new ScanTask(entry, depth + 1).fork();
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // unreadable directories are skipped, as File.listFiles would return null for them; a directory
+            // failing while being listed keeps the entries found so far
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path entry) throws IOException {
+        // one bulk read per entry; symbolic links are not followed, so link cycles can't be walked
+        if (WINDOWS) {
+            return Files.readAttributes(entry, DosFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+        return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * Same rule as File.isHidden: the DOS hidden attribute on Windows, a leading '.' elsewhere.
+     */
+    private static boolean isHidden(Path entry, BasicFileAttributes attributes) {
+        if (attributes instanceof DosFileAttributes) {
+            return ((DosFileAttributes) attributes).isHidden();
+        }
+        Path fileName = entry.getFileName();
+        return fileName != null && fileName.toString().startsWith(".");
+    }
+
+    private void emit(Object result) {
+        try {
+            while (!closed) {
+                if (results.offer(result, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Spliterator<Path> spliterator() {
+        return new Spliterators.AbstractSpliterator<Path>(Long.MAX_VALUE, Spliterator.NONNULL | Spliterator.DISTINCT) {
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Path> action) {
+                if (done) {
+                    return false;
+                }
+                Object result;
+                try {
+                    result = results.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    done = true;
+                    close();
+                    return false;
+                }
+                if (result == END) {
+                    done = true;
+                    pool.shutdown();
+                    return false;
+                }
+                action.accept((Path) result);
+                return true;
+            }
+        };
+    }
+
+    private void close() {
+        closed = true;
+        pool.shutdownNow();
+        results.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package com.chris.chap2;
+
+import com.chris.chap2.FilteringApples.Apple;
+import com.chris.chap2.FilteringApples.AppleListener;
+
+import java.util.*;
+
+/**
+ * This is description.
+ * Maintained bitmap indexes over an apple inventory: one bitmap per distinct color and one bitmap
+ * per weight bucket. Color and weight queries, and combinations of them, resolve by AND/OR over bitmaps.
+ * The index listens to its apples, so setWeight/setColor keep it consistent.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 9:48
+ */
+public class AppleIndex implements AppleListener {
+    private final int bucketWidth;
+    private final List<Apple> rows = new ArrayList<>();
+    private final Map<Apple, Integer> rowIds = new IdentityHashMap<>();
+    private final Map<String, BitSet> colorBitmaps = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> weightBitmaps = new TreeMap<>();
+
+    public AppleIndex(int bucketWidth) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        this.bucketWidth = bucketWidth;
+    }
+
+    public AppleIndex(List<Apple> inventory, int bucketWidth) {
+        this(bucketWidth);
+        for (Apple apple : inventory) {
+            add(apple);
+        }
+    }
+
+    public synchronized int add(Apple apple) {
+        if (rowIds.containsKey(apple)) {
+            throw new IllegalArgumentException("Apple already indexed: " + apple);
+        }
+        int row = rows.size();
+        rows.add(apple);
+        rowIds.put(apple, row);
+        colorBitmap(apple.getColor()).set(row);
+        weightBitmap(apple.getWeight()).set(row);
+        apple.addListener(this);
+        return row;
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    @Override
+    public synchronized void weightChanged(Apple apple, int oldWeight) {
+        Integer row = rowIds.get(apple);
+        if (row == null) {
+            return;
+        }
+        clear(weightBitmaps, bucketOf(oldWeight), row);
+        weightBitmap(apple.getWeight()).set(row);
+    }
+
+    @Override
+    public synchronized void colorChanged(Apple apple, String oldColor) {
+        Integer row = rowIds.get(apple);
+        if (row == null) {
+            return;
+        }
+        clear(colorBitmaps, oldColor, row);
+        colorBitmap(apple.getColor()).set(row);
+    }
+
+    /**
+     * @return a fresh bitmap of the rows whose color equals the given color
+     */
+    public synchronized BitSet byColor(String color) {
+        BitSet bitmap = colorBitmaps.get(color);
+        return bitmap == null ? new BitSet() : (BitSet) bitmap.clone();
+    }
+
+    /**
+     * @return a fresh bitmap of the rows whose weight is greater than the given weight
+     */
+    public synchronized BitSet heavierThan(int weight) {
+        int bucket = bucketOf(weight);
+        BitSet result = new BitSet(rows.size());
+        for (BitSet bitmap : weightBitmaps.tailMap(bucket, false).values()) {
+            result.or(bitmap);
+        }
+        // only the boundary bucket needs a look at the actual weights
+        BitSet boundary = weightBitmaps.get(bucket);
+        if (boundary != null) {
+            for (int i = boundary.nextSetBit(0); i >= 0; i = boundary.nextSetBit(i + 1)) {
+                if (rows.get(i).getWeight() > weight) {
+                    result.set(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    public BitSet byColorAndHeavierThan(String color, int weight) {
+        BitSet result = byColor(color);
+        result.and(heavierThan(weight));
+        return result;
+    }
+
+    public synchronized List<Apple> toList(BitSet selection) {
+        List<Apple> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(rows.get(i));
+        }
+        return result;
+    }
+
+    public List<Apple> filterApplesByColor(String color) {
+        return toList(byColor(color));
+    }
+
+    public List<Apple> filterApplesByWeight(int weight) {
+        return toList(heavierThan(weight));
+    }
+
+    /**
+     * Bitmap counterpart of AppleRedAndHeavyPredicate.
+     */
+    public List<Apple> filterRedAndHeavyApples() {
+        return toList(byColorAndHeavierThan("red", 150));
+    }
+
+    private BitSet colorBitmap(String color) {
+        return colorBitmaps.computeIfAbsent(color, c -> new BitSet());
+    }
+
+    private BitSet weightBitmap(int weight) {
+        return weightBitmaps.computeIfAbsent(bucketOf(weight), b -> new BitSet());
+    }
+
+    private int bucketOf(int weight) {
+        return Math.floorDiv(weight, bucketWidth);
+    }
+
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int row) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(row);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
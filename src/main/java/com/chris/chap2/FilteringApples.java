@@ -1,8 +1,11 @@
 package com.chris.chap2;
 
+import com.chris.chap3.ParallelFilter;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This is description.
@@ -40,7 +43,15 @@ public class FilteringApples {
         List<Apple> redApples2 = filterApples(inventory, (Apple apple) -> "red".equals(apple.getColor()));
         System.out.println(redApples2);
 
-
+        // Bitmap indexes: one bitmap per color, range-bucketed bitmaps over weight
+        AppleIndex index = new AppleIndex(inventory, 50);
+        // [Apple{weight=80, color='green'}, Apple{weight=155, color='green'}]
+        System.out.println(index.filterApplesByColor("green"));
+        // [Apple{weight=155, color='red'}]
+        System.out.println(index.filterRedAndHeavyApples());
+        inventory.get(3).setWeight(160);
+        // [Apple{weight=155, color='red'}, Apple{weight=160, color='red'}]
+        System.out.println(index.filterRedAndHeavyApples());
 
     }
 
@@ -62,6 +73,13 @@ public class FilteringApples {
         return result;
     }
 
+    /**
+     * Fork/join variant of filter(List<T>, Predicate<T>), see com.chris.chap3.ParallelFilter
+     */
+    public static <T> List<T> parallelFilter(List<T> list, Predicate<T> predicate, ForkJoinPool pool, int threshold) {
+        return ParallelFilter.filter(list, predicate::test, pool, threshold);
+    }
+
     public static List<Apple> filterGreenApples(List<Apple> inventory) {
         List<Apple> result = new ArrayList<>();
         for (Apple apple : inventory) {
@@ -114,10 +132,20 @@ public class FilteringApples {
         boolean test(Apple apple);
     }
 
+    /**
+     * Notified after an apple's weight or color has been changed, e.g. to keep an AppleIndex up to date.
+     */
+    public interface AppleListener {
+        void weightChanged(Apple apple, int oldWeight);
+
+        void colorChanged(Apple apple, String oldColor);
+    }
+
     public static class Apple {
 
         private int weight = 0;
         private String color = "";
+        private List<AppleListener> listeners;
 
         @Override
         public String toString() {
@@ -132,7 +160,13 @@ public class FilteringApples {
         }
 
         public void setWeight(int weight) {
+            int oldWeight = this.weight;
             this.weight = weight;
+            if (listeners != null) {
+                for (AppleListener listener : listeners) {
+                    listener.weightChanged(this, oldWeight);
+                }
+            }
         }
 
         public String getColor() {
@@ -140,7 +174,26 @@ public class FilteringApples {
         }
 
         public void setColor(String color) {
+            String oldColor = this.color;
             this.color = color;
+            if (listeners != null) {
+                for (AppleListener listener : listeners) {
+                    listener.colorChanged(this, oldColor);
+                }
+            }
+        }
+
+        public void addListener(AppleListener listener) {
+            if (listeners == null) {
+                listeners = new ArrayList<>(1);
+            }
+            listeners.add(listener);
+        }
+
+        public void removeListener(AppleListener listener) {
+            if (listeners != null) {
+                listeners.remove(listener);
+            }
         }
 
         public Apple() {
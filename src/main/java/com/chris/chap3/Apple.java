@@ -1,5 +1,7 @@
 package com.chris.chap3;
 
+import java.util.Comparator;
+
 /**
  * This is description.
  *
@@ -7,7 +9,7 @@ package com.chris.chap3;
  * @date 2019/6/15 13:48
  */
 public class Apple {
-    private Integer weight = 0;
+    private int weight = 0;
     private String color = "";
 
     @Override
@@ -18,11 +20,11 @@ public class Apple {
                 '}';
     }
 
-    public Integer getWeight() {
+    public int getWeight() {
         return weight;
     }
 
-    public void setWeight(Integer weight) {
+    public void setWeight(int weight) {
         this.weight = weight;
     }
 
@@ -37,8 +39,16 @@ public class Apple {
     public Apple() {
     }
 
-    public Apple(Integer weight, String color) {
+    public Apple(int weight, String color) {
         this.weight = weight;
         this.color = color;
     }
+
+    public static Comparator<Apple> byWeight() {
+        return Comparator.comparingInt(Apple::getWeight);
+    }
+
+    public static Comparator<Apple> byColor() {
+        return Comparator.comparing(Apple::getColor);
+    }
 }
@@ -0,0 +1,78 @@
+package com.chris.chap3;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This is description.
+ * Before/after cost of sorting and filtering apples with a boxed Integer weight versus the int weight of Apple.
+ * Usage: java com.chris.chap3.AppleBenchmark [apples], 10M apples by default (run with a large enough -Xmx).
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 15:05
+ */
+public class AppleBenchmark {
+    private static final String[] COLORS = {"green", "red", "yellow"};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        List<BoxedApple> boxedInventory = new ArrayList<>(size);
+        List<Apple> inventory = new ArrayList<>(size);
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            int weight = 50 + random.nextInt(250);
+            String color = COLORS[random.nextInt(COLORS.length)];
+            boxedInventory.add(new BoxedApple(weight, color));
+            inventory.add(new Apple(weight, color));
+        }
+
+        // Before: Integer weight, Comparator.comparing() unboxes on every comparison
+        Comparator<BoxedApple> boxedComparator = Comparator.comparing(BoxedApple::getWeight).reversed().thenComparing(BoxedApple::getColor);
+        // After: int weight, Comparator.comparingInt()
+        Comparator<Apple> comparator = Apple.byWeight().reversed().thenComparing(Apple.byColor());
+
+        System.out.printf("sort %d apples, boxed: %.1f ms%n", size, measure(() -> new ArrayList<>(boxedInventory).sort(boxedComparator)));
+        System.out.printf("sort %d apples, int:   %.1f ms%n", size, measure(() -> new ArrayList<>(inventory).sort(comparator)));
+        System.out.printf("filter %d apples, boxed: %.1f ms%n", size, measure(() -> Lambda.filter(boxedInventory, apple -> apple.getWeight() > 150)));
+        System.out.printf("filter %d apples, int:   %.1f ms%n", size, measure(() -> Lambda.filter(inventory, apple -> apple.getWeight() > 150)));
+    }
+
+    /**
+     * @return the average time of one run in milliseconds, after warming up
+     */
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+
+    /**
+     * Apple as it was before: the weight is an Integer.
+     */
+    static class BoxedApple {
+        private final Integer weight;
+        private final String color;
+
+        BoxedApple(Integer weight, String color) {
+            this.weight = weight;
+            this.color = color;
+        }
+
+        public Integer getWeight() {
+            return weight;
+        }
+
+        public String getColor() {
+            return color;
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.chris.chap3;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * This is description.
@@ -19,6 +30,7 @@ import java.util.function.Predicate;
  * @date 2019/6/15 13:45
  */
 public class Lambda {
+    private static final String DATA_FILE = "src/main/java/com/chris/chap3/data.txt";
 
     public static void main(String[] args) throws IOException {
         List<Apple> inventory = Arrays.asList(
@@ -31,15 +43,15 @@ public class Lambda {
         Comparator<Apple> byWeight = new Comparator<Apple>() {
             @Override
             public int compare(Apple o1, Apple o2) {
-                return o1.getWeight().compareTo(o2.getWeight());
+                return Integer.compare(o1.getWeight(), o2.getWeight());
             }
         };
 
         // After (with lambda expressions):
-        Comparator<Apple> byWeight2 = (Apple o1, Apple o2) -> o1.getWeight().compareTo(o2.getWeight());
+        Comparator<Apple> byWeight2 = (Apple o1, Apple o2) -> Integer.compare(o1.getWeight(), o2.getWeight());
 
-        // Comparator.comparing()
-        Comparator<Apple> byWeight3 = Comparator.comparing(Apple::getWeight);
+        // Comparator.comparingInt(): the int weight is compared without boxing
+        Comparator<Apple> byWeight3 = Comparator.comparingInt(Apple::getWeight);
 
         Runnable r1 = () -> System.out.println("Hello world 1");
         Runnable r2 = new Runnable() {
@@ -59,11 +71,32 @@ public class Lambda {
         String twoLines = processFile(bufferedReader -> bufferedReader.readLine() + " " + bufferedReader.readLine());
         System.out.println(twoLines);
 
+        // memory-mapped, chunk-parallel processing: count the lines of the file
+        Long lineCount = processFile(Paths.get(DATA_FILE), () -> new MappedFileProcessor.LineProcessor<Long>() {
+            private long lines = 0;
+
+            @Override
+            public void processLine(ByteBuffer buffer, int start, int end) {
+                lines++;
+            }
+
+            @Override
+            public Long result() {
+                return lines;
+            }
+        }, Long::sum);
+        // lineCount: 3
+        System.out.println("lineCount: " + lineCount);
+
         // Predicate
         List<String> list = Arrays.asList("Java 8", "", "In", "", "Action");
         Predicate<String> nonEmptyStringPredicate = (String s) -> !s.isEmpty();
         List<String> nonEmpty = filter(list, nonEmptyStringPredicate);
         System.out.println(nonEmpty);
+        // the parallel filter keeps the encounter order of the sequential one
+        List<String> nonEmpty2 = parallelFilter(list, nonEmptyStringPredicate, ForkJoinPool.commonPool(), 2);
+        // true
+        System.out.println(nonEmpty.equals(nonEmpty2));
 
         // Consumer
         forEach(Arrays.asList(1, 2, 3, 4, 5), System.out::println);
@@ -72,6 +105,15 @@ public class Lambda {
         List<Integer> integerList = map(list, String::length);
         System.out.println(integerList);
 
+        // Primitive specializations: IntConsumer, IntPredicate, ToIntFunction
+        forEach(new int[]{1, 2, 3, 4, 5}, (int i) -> System.out.print(i + " "));
+        System.out.println();
+        PrimitiveBuffer.OfInt lengths = mapToInt(list, String::length);
+        // lengths: [6, 0, 2, 0, 6]
+        System.out.println("lengths: " + lengths);
+        // evenLengths: [6, 0, 2, 0, 6]
+        System.out.println("evenLengths: " + filter(lengths.toArray(), (int i) -> i % 2 == 0));
+
         // Method references
         List<String> stringList = Arrays.asList("a", "b", "A", "B");
         System.out.println(stringList);
@@ -80,11 +122,16 @@ public class Lambda {
         System.out.println(stringList);
 
         // 1. Composing Comparators
-        Comparator.comparing(Apple::getWeight);
+        Apple.byWeight();
         // 2. Reversed order
-        inventory.sort(Comparator.comparing(Apple::getWeight).reversed());
+        inventory.sort(Apple.byWeight().reversed());
         // 3. Chaining Comparators
-        inventory.sort(Comparator.comparing(Apple::getWeight).reversed().thenComparing(Apple::getColor));
+        inventory.sort(Apple.byWeight().reversed().thenComparing(Apple.byColor()));
+        // the same order with packed long keys and a radix sort
+        PackedKeySort<Apple> byWeightReversedThenColor = PackedKeySort.<Apple>byInt(Apple::getWeight).reversed().thenByDictionary(Apple::getColor);
+        byWeightReversedThenColor.sort(inventory);
+        // [Apple{weight=155, color='green'}, Apple{weight=155, color='red'}, Apple{weight=120, color='red'}, Apple{weight=80, color='green'}]
+        System.out.println(inventory);
 
         // Composing Predicates
         List<Apple> redApples = filter(inventory, apple -> "red".equals(apple.getColor()));
@@ -104,6 +151,15 @@ public class Lambda {
         List<Apple> redAndHeavyOrGreenApples = filter(inventory, redAndHeavyOrGreenPredicate);
         System.out.println(redAndHeavyOrGreenApples);
 
+        // Compiling a composed predicate from named leaves: operands are reordered by observed selectivity and cost
+        PredicateCompiler.Node<Apple> red = PredicateCompiler.leaf("red", apple -> "red".equals(apple.getColor()));
+        PredicateCompiler.Node<Apple> heavy = PredicateCompiler.leaf("heavy", apple -> apple.getWeight() > 150);
+        PredicateCompiler.Node<Apple> green = PredicateCompiler.leaf("green", apple -> "green".equals(apple.getColor()));
+        PredicateCompiler.CompiledPredicate<Apple> compiledPredicate = PredicateCompiler.compile(red.and(heavy).or(green));
+        // [Apple{weight=155, color='green'}, Apple{weight=155, color='red'}, Apple{weight=80, color='green'}]
+        System.out.println(filter(inventory, compiledPredicate));
+        System.out.println(compiledPredicate.stats());
+
         // Composing Functions: andThen(), compose
         Function<Integer, Integer> f = x -> x + 1;
         Function<Integer, Integer> g = x -> x * 2;
@@ -142,6 +198,22 @@ public class Lambda {
             Function<String, String> transformationPipeline1 = addHeader.andThen(Letter::checkSpelling).andThen(Letter::addFooter);
             // pipeline 2: addHeader -> addFooter
             Function<String, String> transformationPipeline2 = addHeader.andThen(Letter::addHeader);
+
+            // the same pipeline 1, fused into one reusable buffer with the pattern compiled once
+            TextPipeline fusedPipeline1 = TextPipeline.builder()
+                    .prepend("addHeader", "From Chris: ")
+                    .replaceAll("checkSpelling", "labda", "lambda")
+                    .append("addFooter", " Kind regards")
+                    .build();
+            String letter = "I like labda expressions.";
+            // From Chris: I like lambda expressions. Kind regards
+            System.out.println(transformationPipeline1.apply(letter));
+            // true
+            System.out.println(transformationPipeline1.apply(letter).equals(fusedPipeline1.apply(letter)));
+            List<String> letters = fusedPipeline1.applyAll(Arrays.asList(letter, "labda", "lambda"));
+            // [From Chris: I like lambda expressions. Kind regards, From Chris: lambda Kind regards, From Chris: lambda Kind regards]
+            System.out.println(letters);
+            System.out.println(fusedPipeline1.stats());
         }
     }
     public static <T, R> List<R> map(List<T> list, Function<T, R> function) {
@@ -169,19 +241,124 @@ public class Lambda {
         return result;
     }
 
+    // Primitive specializations: no Integer/Long/Double boxing per element
+
+    public static <T> PrimitiveBuffer.OfInt mapToInt(List<T> list, ToIntFunction<T> function) {
+        return mapToInt(list, function, new PrimitiveBuffer.OfInt(list.size()));
+    }
+
+    public static <T> PrimitiveBuffer.OfInt mapToInt(List<T> list, ToIntFunction<T> function, PrimitiveBuffer.OfInt result) {
+        result.ensureCapacity(result.size() + list.size());
+        if (list instanceof RandomAccess) {
+            for (int i = 0, size = list.size(); i < size; i++) {
+                result.add(function.applyAsInt(list.get(i)));
+            }
+        } else {
+            for (T t : list) {
+                result.add(function.applyAsInt(t));
+            }
+        }
+        return result;
+    }
+
+    public static <T> PrimitiveBuffer.OfLong mapToLong(List<T> list, ToLongFunction<T> function) {
+        return mapToLong(list, function, new PrimitiveBuffer.OfLong(list.size()));
+    }
+
+    public static <T> PrimitiveBuffer.OfLong mapToLong(List<T> list, ToLongFunction<T> function, PrimitiveBuffer.OfLong result) {
+        result.ensureCapacity(result.size() + list.size());
+        if (list instanceof RandomAccess) {
+            for (int i = 0, size = list.size(); i < size; i++) {
+                result.add(function.applyAsLong(list.get(i)));
+            }
+        } else {
+            for (T t : list) {
+                result.add(function.applyAsLong(t));
+            }
+        }
+        return result;
+    }
+
+    public static <T> PrimitiveBuffer.OfDouble mapToDouble(List<T> list, ToDoubleFunction<T> function) {
+        return mapToDouble(list, function, new PrimitiveBuffer.OfDouble(list.size()));
+    }
+
+    public static <T> PrimitiveBuffer.OfDouble mapToDouble(List<T> list, ToDoubleFunction<T> function, PrimitiveBuffer.OfDouble result) {
+        result.ensureCapacity(result.size() + list.size());
+        if (list instanceof RandomAccess) {
+            for (int i = 0, size = list.size(); i < size; i++) {
+                result.add(function.applyAsDouble(list.get(i)));
+            }
+        } else {
+            for (T t : list) {
+                result.add(function.applyAsDouble(t));
+            }
+        }
+        return result;
+    }
+
+    public static void forEach(int[] values, IntConsumer consumer) {
+        for (int value : values) {
+            consumer.accept(value);
+        }
+    }
+
+    public static void forEach(PrimitiveBuffer.OfInt values, IntConsumer consumer) {
+        values.forEach(consumer);
+    }
+
+    public static PrimitiveBuffer.OfInt filter(int[] values, IntPredicate p) {
+        return filter(values, p, new PrimitiveBuffer.OfInt());
+    }
+
+    public static PrimitiveBuffer.OfInt filter(int[] values, IntPredicate p, PrimitiveBuffer.OfInt result) {
+        for (int value : values) {
+            if (p.test(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public static PrimitiveBuffer.OfInt filter(PrimitiveBuffer.OfInt values, IntPredicate p, PrimitiveBuffer.OfInt result) {
+        for (int i = 0, size = values.size(); i < size; i++) {
+            int value = values.get(i);
+            if (p.test(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public static <T> List<T> parallelFilter(List<T> list, Predicate<T> p) {
+        return ParallelFilter.filter(list, p);
+    }
+
+    public static <T> List<T> parallelFilter(List<T> list, Predicate<T> p, ForkJoinPool pool, int threshold) {
+        return ParallelFilter.filter(list, p, pool, threshold);
+    }
+
     @FunctionalInterface
     public interface BufferedReaderProcessor {
         String process(BufferedReader bufferedReader) throws IOException;
     }
 
     public static String processFile(BufferedReaderProcessor p) throws IOException {
-        BufferedReader br = null;
-        try {
-            br = new BufferedReader(new FileReader("E:\\Code\\Java\\Java8InAction-Learn\\src\\main\\java\\com\\chris\\chap3\\data.txt"));
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        return processFile(Paths.get(DATA_FILE), p);
+    }
+
+    public static String processFile(Path path, BufferedReaderProcessor p) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            return p.process(br);
         }
-        return p.process(br);
+    }
+
+    /**
+     * Memory-maps the file and processes it chunk by chunk in parallel, see MappedFileProcessor
+     */
+    public static <R> R processFile(Path path, Supplier<? extends MappedFileProcessor.LineProcessor<R>> processorFactory,
+                                    BinaryOperator<R> combiner) throws IOException {
+        return MappedFileProcessor.processFile(path, processorFactory, combiner);
     }
 
     private static void process(Runnable r) {
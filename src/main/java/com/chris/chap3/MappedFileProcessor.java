@@ -0,0 +1,151 @@
+package com.chris.chap3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * This is description.
+ * Memory-maps a file through FileChannel, splits it on line boundaries into chunks and lets a pool of
+ * workers run a line-oriented processor over each chunk. The per-chunk results are combined in file order.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 11:40
+ */
+public class MappedFileProcessor {
+    // a single mapping can't exceed Integer.MAX_VALUE bytes, keep chunks well below that
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int BOUNDARY_SCAN_SIZE = 8 * 1024;
+
+    /**
+     * Processes the lines of one chunk. Each worker gets its own instance, so implementations need not be thread-safe.
+     */
+    public interface LineProcessor<R> {
+        /**
+         * @param buffer the mapped chunk
+         * @param start  index of the first byte of the line
+         * @param end    index after the last byte of the line, line terminators excluded
+         */
+        void processLine(ByteBuffer buffer, int start, int end);
+
+        R result();
+    }
+
+    public static <R> R processFile(Path path, Supplier<? extends LineProcessor<R>> processorFactory,
+                                    BinaryOperator<R> combiner) throws IOException {
+        return processFile(path, processorFactory, combiner, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Exceptions thrown by a worker reach the caller as they are: an UncheckedIOException as its IOException,
+     * other runtime exceptions and errors (an OutOfMemoryError, say) unchanged.
+     */
+    public static <R> R processFile(Path path, Supplier<? extends LineProcessor<R>> processorFactory,
+                                    BinaryOperator<R> combiner, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return processorFactory.get().result();
+            }
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L)));
+            List<Future<R>> futures = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Line too long to map near offset " + start + " in " + path);
+                }
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                futures.add(pool.submit(() -> processChunk(chunk, processorFactory.get())));
+                start = end;
+            }
+            R result = null;
+            for (Future<R> future : futures) {
+                R chunkResult = future.get();
+                result = result == null ? chunkResult : combiner.apply(result, chunkResult);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing " + path, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            // only a checked exception from a worker gets wrapped
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Decodes a line handed to {@link LineProcessor#processLine} as UTF-8.
+     */
+    public static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static <R> R processChunk(ByteBuffer chunk, LineProcessor<R> processor) {
+        int limit = chunk.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                processor.processLine(chunk, lineStart, trimCarriageReturn(chunk, lineStart, i));
+                lineStart = i + 1;
+            }
+        }
+        // last line without a terminator
+        if (lineStart < limit) {
+            processor.processLine(chunk, lineStart, trimCarriageReturn(chunk, lineStart, limit));
+        }
+        return processor.result();
+    }
+
+    private static int trimCarriageReturn(ByteBuffer chunk, int start, int end) {
+        return end > start && chunk.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    /**
+     * @return the offset just after the first '\n' at or after position, or size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
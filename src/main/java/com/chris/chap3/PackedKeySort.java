@@ -0,0 +1,296 @@
+package com.chris.chap3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * This is description.
+ * A sort for comparators made of int keys and dictionary (or enum) keys, such as
+ * comparing(Apple::getWeight).reversed().thenComparing(Apple::getColor): every element's keys are packed
+ * into one long together with its position, the longs are radix sorted (or Arrays.parallelSort-ed for large
+ * inputs on a multi-core box) and the list is permuted once. The position in the low bits keeps the sort stable, so the result
+ * is identical to List.sort(comparator()). When the keys need more than 63 bits it falls back to List.sort.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 14:25
+ */
+public class PackedKeySort<T> {
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 20;
+    private static final int RADIX_SORT_THRESHOLD = 64;
+    private static final int RADIX_BITS = 11;
+
+    private final List<Key<T>> keys;
+
+    private PackedKeySort(List<Key<T>> keys) {
+        this.keys = keys;
+    }
+
+    public static <T> PackedKeySort<T> byInt(ToIntFunction<? super T> key) {
+        return new PackedKeySort<T>(Collections.emptyList()).thenByInt(key);
+    }
+
+    public static <T, U extends Comparable<? super U>> PackedKeySort<T> byDictionary(Function<? super T, ? extends U> key) {
+        return new PackedKeySort<T>(Collections.emptyList()).thenByDictionary(key);
+    }
+
+    public static <T, E extends Enum<E>> PackedKeySort<T> byEnum(Function<? super T, E> key) {
+        return new PackedKeySort<T>(Collections.emptyList()).thenByEnum(key);
+    }
+
+    public PackedKeySort<T> thenByInt(ToIntFunction<? super T> key) {
+        return then(new IntKey<>(key, false));
+    }
+
+    /**
+     * A key with few distinct values, e.g. a color: the values are ranked by natural order and the rank is packed.
+     */
+    public <U extends Comparable<? super U>> PackedKeySort<T> thenByDictionary(Function<? super T, ? extends U> key) {
+        return then(new DictionaryKey<>(key, false));
+    }
+
+    public <E extends Enum<E>> PackedKeySort<T> thenByEnum(Function<? super T, E> key) {
+        return then(new IntKey<T>(t -> key.apply(t).ordinal(), false));
+    }
+
+    /**
+     * Reverses the order of all keys so far, like Comparator.reversed().
+     */
+    public PackedKeySort<T> reversed() {
+        List<Key<T>> reversed = new ArrayList<>(keys.size());
+        for (Key<T> key : keys) {
+            reversed.add(key.reversed());
+        }
+        return new PackedKeySort<>(reversed);
+    }
+
+    public Comparator<T> comparator() {
+        Comparator<T> comparator = keys.get(0).comparator();
+        for (int i = 1; i < keys.size(); i++) {
+            comparator = comparator.thenComparing(keys.get(i).comparator());
+        }
+        return comparator;
+    }
+
+    /**
+     * Sorts the list in place, with the same result as list.sort(comparator()).
+     */
+    @SuppressWarnings("unchecked")
+    public void sort(List<T> list) {
+        int n = list.size();
+        if (n < 2) {
+            return;
+        }
+        Object[] items = list.toArray();
+        int indexBits = bitsFor(n - 1);
+        int totalBits = indexBits;
+        long[][] columns = new long[keys.size()][];
+        int[] columnBits = new int[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            columns[k] = keys.get(k).normalize(items);
+            columnBits[k] = bitsFor(max(columns[k]));
+            totalBits += columnBits[k];
+        }
+        if (totalBits > 63) {
+            list.sort(comparator());
+            return;
+        }
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            long key = 0;
+            for (int k = 0; k < columns.length; k++) {
+                key = (key << columnBits[k]) | columns[k][i];
+            }
+            packed[i] = (key << indexBits) | i;
+        }
+        if (n >= PARALLEL_SORT_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            Arrays.parallelSort(packed);
+        } else if (n >= RADIX_SORT_THRESHOLD) {
+            radixSort(packed, totalBits);
+        } else {
+            Arrays.sort(packed);
+        }
+        long indexMask = (1L << indexBits) - 1;
+        ListIterator<T> iterator = list.listIterator();
+        for (long key : packed) {
+            iterator.next();
+            iterator.set((T) items[(int) (key & indexMask)]);
+        }
+    }
+
+    private PackedKeySort<T> then(Key<T> key) {
+        List<Key<T>> then = new ArrayList<>(keys);
+        then.add(key);
+        return new PackedKeySort<>(then);
+    }
+
+    /**
+     * LSD radix sort of non-negative keys, only over the bits that are actually used.
+     */
+    private static void radixSort(long[] keys, int bits) {
+        long[] source = keys;
+        long[] target = new long[keys.length];
+        int[] counts = new int[1 << RADIX_BITS];
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (long key : source) {
+                counts[(int) (key >>> shift) & mask]++;
+            }
+            int offset = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int count = counts[d];
+                counts[d] = offset;
+                offset += count;
+            }
+            for (long key : source) {
+                target[counts[(int) (key >>> shift) & mask]++] = key;
+            }
+            long[] tmp = source;
+            source = target;
+            target = tmp;
+        }
+        if (source != keys) {
+            System.arraycopy(source, 0, keys, 0, keys.length);
+        }
+    }
+
+    private static long max(long[] values) {
+        long max = 0;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static int bitsFor(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private abstract static class Key<T> {
+        final boolean descending;
+
+        Key(boolean descending) {
+            this.descending = descending;
+        }
+
+        /**
+         * @return the key of every item as a non-negative long, in the order of this key
+         */
+        abstract long[] normalize(Object[] items);
+
+        abstract Key<T> reversed();
+
+        abstract Comparator<T> comparator();
+    }
+
+    private static class IntKey<T> extends Key<T> {
+        private final ToIntFunction<? super T> key;
+
+        IntKey(ToIntFunction<? super T> key, boolean descending) {
+            super(descending);
+            this.key = key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        long[] normalize(Object[] items) {
+            long[] values = new long[items.length];
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < items.length; i++) {
+                long value = key.applyAsInt((T) items[i]);
+                values[i] = value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            for (int i = 0; i < values.length; i++) {
+                values[i] = descending ? max - values[i] : values[i] - min;
+            }
+            return values;
+        }
+
+        @Override
+        Key<T> reversed() {
+            return new IntKey<>(key, !descending);
+        }
+
+        @Override
+        Comparator<T> comparator() {
+            Comparator<T> comparator = Comparator.comparingInt(key);
+            return descending ? comparator.reversed() : comparator;
+        }
+    }
+
+    private static class DictionaryKey<T, U extends Comparable<? super U>> extends Key<T> {
+        private final Function<? super T, ? extends U> key;
+
+        DictionaryKey(Function<? super T, ? extends U> key, boolean descending) {
+            super(descending);
+            this.key = key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        long[] normalize(Object[] items) {
+            // one hash lookup per item: give each distinct value an id in order of appearance ...
+            Map<U, Integer> ids = new HashMap<>();
+            List<U> dictionary = new ArrayList<>();
+            int[] itemIds = new int[items.length];
+            for (int i = 0; i < items.length; i++) {
+                U value = key.apply((T) items[i]);
+                Integer id = ids.get(value);
+                if (id == null) {
+                    id = dictionary.size();
+                    ids.put(value, id);
+                    dictionary.add(value);
+                }
+                itemIds[i] = id;
+            }
+            // ... then map the ids to the rank of their value in natural order
+            Integer[] byValue = new Integer[dictionary.size()];
+            for (int id = 0; id < byValue.length; id++) {
+                byValue[id] = id;
+            }
+            Arrays.sort(byValue, (a, b) -> dictionary.get(a).compareTo(dictionary.get(b)));
+            // values that compare equal without being equals() (BigDecimal 1.0 and 1.00) share a rank
+            long[] ranks = new long[byValue.length];
+            long rank = 0;
+            for (int i = 0; i < byValue.length; i++) {
+                if (i > 0 && dictionary.get(byValue[i - 1]).compareTo(dictionary.get(byValue[i])) != 0) {
+                    rank++;
+                }
+                ranks[byValue[i]] = rank;
+            }
+            if (descending) {
+                for (int id = 0; id < ranks.length; id++) {
+                    ranks[id] = rank - ranks[id];
+                }
+            }
+            long[] normalized = new long[items.length];
+            for (int i = 0; i < items.length; i++) {
+                normalized[i] = ranks[itemIds[i]];
+            }
+            return normalized;
+        }
+
+        @Override
+        Key<T> reversed() {
+            return new DictionaryKey<>(key, !descending);
+        }
+
+        @Override
+        Comparator<T> comparator() {
+            Comparator<T> comparator = Comparator.comparing(key);
+            return descending ? comparator.reversed() : comparator;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.chris.chap3;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * This is description.
+ * A fork/join variant of filter(List<T>, Predicate<T>): the input is split into index ranges of
+ * `threshold` elements, each range is filtered into its own chunk, and the chunks are stitched
+ * together in encounter order without copying them into one array.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 11:05
+ */
+public class ParallelFilter {
+    public static final int DEFAULT_THRESHOLD = 1 << 13;
+    // a chunk's buffer starts small and doubles, so a selective predicate doesn't pay for threshold slots
+    private static final int INITIAL_CHUNK_CAPACITY = 16;
+
+    public static <T> List<T> filter(List<T> list, Predicate<? super T> p) {
+        return filter(list, p, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool      the pool the chunks are filtered on
+     * @param threshold chunk size; lists smaller than this are filtered sequentially on the calling thread
+     * @return an unmodifiable, random access list of the matching elements in encounter order
+     */
+    public static <T> List<T> filter(List<T> list, Predicate<? super T> p, ForkJoinPool pool, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        int size = list.size();
+        if (size < threshold) {
+            return new ChunkedList<>(new Object[][]{filterRange(list, p, 0, size)});
+        }
+        // index-based splitting needs random access
+        List<T> source = list instanceof RandomAccess ? list : new ArrayList<>(list);
+        int chunkCount = (int) (((long) size + threshold - 1) / threshold);
+        Object[][] chunks = new Object[chunkCount][];
+        pool.invoke(new FilterTask<>(source, p, threshold, chunks, 0, chunkCount));
+        return new ChunkedList<>(chunks);
+    }
+
+    /**
+     * The elements from .. to - 1 of the source that match, in an array of exactly their number.
+     */
+    private static <T> Object[] filterRange(List<T> source, Predicate<? super T> p, int from, int to) {
+        int length = to - from;
+        Object[] result = new Object[Math.min(INITIAL_CHUNK_CAPACITY, length)];
+        int count = 0;
+        for (T t : source.subList(from, to)) {
+            if (p.test(t)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, Math.min(length, count * 2));
+                }
+                result[count++] = t;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static class FilterTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> source;
+        private final Predicate<? super T> p;
+        private final int chunkSize;
+        private final Object[][] chunks;
+        private final int fromChunk;
+        private final int toChunk;
+
+        FilterTask(List<T> source, Predicate<? super T> p, int chunkSize,
+                   Object[][] chunks, int fromChunk, int toChunk) {
+            this.source = source;
+            this.p = p;
+            this.chunkSize = chunkSize;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = fromChunk * chunkSize;
+                int to = (int) Math.min((long) from + chunkSize, source.size());
+                chunks[fromChunk] = filterRange(source, p, from, to);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new FilterTask<>(source, p, chunkSize, chunks, fromChunk, middle),
+                    new FilterTask<>(source, p, chunkSize, chunks, middle, toChunk));
+        }
+    }
+
+    /**
+     * A read-only list view over the per-chunk results, in chunk order.
+     */
+    private static class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        // offsets[i] is the list index of the first element of chunks[i]
+        private final int[] offsets;
+        private final int size;
+
+        ChunkedList(Object[][] chunks) {
+            this.chunks = chunks;
+            this.offsets = new int[chunks.length];
+            int offset = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                offsets[i] = offset;
+                offset += chunks[i].length;
+            }
+            this.size = offset;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int chunk = Arrays.binarySearch(offsets, index);
+            if (chunk < 0) {
+                chunk = -chunk - 2;
+            } else {
+                // skip empty chunks sharing the same offset
+                while (chunks[chunk].length == 0) {
+                    chunk++;
+                }
+            }
+            return (T) chunks[chunk][index - offsets[chunk]];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super T> action) {
+            for (Object[] chunk : chunks) {
+                for (Object t : chunk) {
+                    action.accept((T) t);
+                }
+            }
+        }
+    }
+}
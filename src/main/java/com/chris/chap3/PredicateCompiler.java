@@ -0,0 +1,424 @@
+package com.chris.chap3;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * This is description.
+ * Composing predicates from named, introspectable leaves and compiling the tree into one evaluator:
+ * nested and/or chains are flattened, double negations removed, and the operands of every and/or are
+ * reordered at runtime by observed selectivity and cost, so the cheapest and most selective test runs first.
+ * Selectivity and cost are only observed during a warm-up window of evaluations; the order is then fixed
+ * and later evaluations run without counters, sampling or reordering.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 10:20
+ */
+public class PredicateCompiler {
+    // operands are reordered about once every REORDER_INTERVAL evaluations of an and/or node
+    private static final int REORDER_INTERVAL = 1024;
+    // about one evaluation out of TIMING_SAMPLE is timed with System.nanoTime()
+    private static final int TIMING_SAMPLE = 16;
+    // evaluations observed before the order is frozen
+    public static final long DEFAULT_WARM_UP = 1 << 16;
+
+    public static <T> Node<T> leaf(String name, Predicate<? super T> predicate) {
+        return new Leaf<>(name, predicate);
+    }
+
+    public static <T> CompiledPredicate<T> compile(Node<T> root) {
+        return compile(root, DEFAULT_WARM_UP);
+    }
+
+    /**
+     * @param warmUp the number of evaluations observed before the operand order is frozen
+     */
+    public static <T> CompiledPredicate<T> compile(Node<T> root, long warmUp) {
+        if (warmUp < 0) {
+            throw new IllegalArgumentException("warmUp must not be negative: " + warmUp);
+        }
+        List<LeafEvaluator<T>> leaves = new ArrayList<>();
+        Evaluator<T> evaluator = root.compile(false, leaves);
+        return new CompiledPredicate<>(evaluator, leaves, warmUp);
+    }
+
+    /**
+     * A node of a predicate tree, composed like java.util.function.Predicate.
+     */
+    public abstract static class Node<T> {
+
+        public Node<T> and(Node<T> other) {
+            return new Junction<>(true, this, other);
+        }
+
+        public Node<T> or(Node<T> other) {
+            return new Junction<>(false, this, other);
+        }
+
+        public Node<T> negate() {
+            return new Not<>(this);
+        }
+
+        abstract Evaluator<T> compile(boolean negated, List<LeafEvaluator<T>> leaves);
+    }
+
+    private static class Leaf<T> extends Node<T> {
+        private final String name;
+        private final Predicate<? super T> predicate;
+
+        Leaf(String name, Predicate<? super T> predicate) {
+            this.name = Objects.requireNonNull(name);
+            this.predicate = Objects.requireNonNull(predicate);
+        }
+
+        @Override
+        Evaluator<T> compile(boolean negated, List<LeafEvaluator<T>> leaves) {
+            LeafEvaluator<T> leaf = new LeafEvaluator<>(name, predicate, negated);
+            leaves.add(leaf);
+            return leaf;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class Not<T> extends Node<T> {
+        private final Node<T> node;
+
+        Not(Node<T> node) {
+            this.node = node;
+        }
+
+        @Override
+        Evaluator<T> compile(boolean negated, List<LeafEvaluator<T>> leaves) {
+            // !!a == a
+            return node.compile(!negated, leaves);
+        }
+
+        @Override
+        public String toString() {
+            return "!" + node;
+        }
+    }
+
+    private static class Junction<T> extends Node<T> {
+        private final boolean and;
+        private final Node<T> left;
+        private final Node<T> right;
+
+        Junction(boolean and, Node<T> left, Node<T> right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Evaluator<T> compile(boolean negated, List<LeafEvaluator<T>> leaves) {
+            // De Morgan: !(a && b) == !a || !b, so a negated and becomes an or of negated operands
+            boolean compiledAnd = and != negated;
+            List<Evaluator<T>> operands = new ArrayList<>();
+            flatten(this, compiledAnd, negated, operands, leaves);
+            return new JunctionEvaluator<>(compiledAnd, operands);
+        }
+
+        private static <T> void flatten(Node<T> node, boolean and, boolean negated,
+                                        List<Evaluator<T>> operands, List<LeafEvaluator<T>> leaves) {
+            if (node instanceof Junction && (((Junction<T>) node).and != negated) == and) {
+                Junction<T> junction = (Junction<T>) node;
+                flatten(junction.left, and, negated, operands, leaves);
+                flatten(junction.right, and, negated, operands, leaves);
+            } else {
+                operands.add(node.compile(negated, leaves));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + (and ? " && " : " || ") + right + ")";
+        }
+    }
+
+    /**
+     * The compiled predicate, with per-leaf counters of the warm-up window.
+     */
+    public static class CompiledPredicate<T> implements Predicate<T> {
+        private final Evaluator<T> evaluator;
+        private final List<LeafEvaluator<T>> leaves;
+        private final long warmUp;
+        private final AtomicLong warmUpLeft;
+        private volatile boolean frozen;
+
+        CompiledPredicate(Evaluator<T> evaluator, List<LeafEvaluator<T>> leaves, long warmUp) {
+            this.evaluator = evaluator;
+            this.leaves = leaves;
+            this.warmUp = warmUp;
+            this.warmUpLeft = new AtomicLong(warmUp);
+            if (warmUp == 0) {
+                freeze();
+            }
+        }
+
+        @Override
+        public boolean test(T t) {
+            if (frozen) {
+                return evaluator.evaluate(t);
+            }
+            boolean result = evaluator.profile(t);
+            if (warmUpLeft.decrementAndGet() == 0) {
+                freeze();
+            }
+            return result;
+        }
+
+        public boolean isFrozen() {
+            return frozen;
+        }
+
+        /**
+         * Orders every and/or by what was observed so far and stops observing.
+         */
+        public synchronized void freeze() {
+            if (!frozen) {
+                evaluator.freeze();
+                frozen = true;
+            }
+        }
+
+        /**
+         * Clears the counters and observes a new warm-up window, after which the operands are ordered again;
+         * call it when the data may have changed, since a frozen predicate no longer follows the data.
+         */
+        public synchronized void reset() {
+            evaluator.reset();
+            warmUpLeft.set(warmUp);
+            frozen = false;
+            if (warmUp == 0) {
+                freeze();
+            }
+        }
+
+        /**
+         * The counters of the last warm-up window; they don't change once frozen, see reset. A negated leaf
+         * is named !name and counts the evaluations where its negation held.
+         */
+        public List<LeafStats> stats() {
+            List<LeafStats> stats = new ArrayList<>(leaves.size());
+            for (LeafEvaluator<T> leaf : leaves) {
+                stats.add(new LeafStats(leaf.toString(), leaf.evaluations.sum(), leaf.hits.sum(), leaf.averageNanos()));
+            }
+            return stats;
+        }
+
+        @Override
+        public String toString() {
+            return evaluator.toString();
+        }
+    }
+
+    public static class LeafStats {
+        private final String name;
+        private final long evaluations;
+        private final long hits;
+        private final double averageNanos;
+
+        LeafStats(String name, long evaluations, long hits, double averageNanos) {
+            this.name = name;
+            this.evaluations = evaluations;
+            this.hits = hits;
+            this.averageNanos = averageNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public double getAverageNanos() {
+            return averageNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LeafStats{" +
+                    "name='" + name + '\'' +
+                    ", evaluations=" + evaluations +
+                    ", hits=" + hits +
+                    ", averageNanos=" + String.format("%.1f", averageNanos) +
+                    '}';
+        }
+    }
+
+    abstract static class Evaluator<T> {
+        final LongAdder evaluations = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder sampledNanos = new LongAdder();
+        final LongAdder sampledEvaluations = new LongAdder();
+
+        /**
+         * Evaluates without observing, the operands in their current order.
+         */
+        abstract boolean evaluate(T t);
+
+        /**
+         * Evaluates, observing the operands too.
+         */
+        abstract boolean evaluateProfiled(T t);
+
+        /**
+         * Reorders for the last time, operands first.
+         */
+        void freeze() {
+        }
+
+        /**
+         * Clears the counters, operands too.
+         */
+        void reset() {
+            evaluations.reset();
+            hits.reset();
+            sampledNanos.reset();
+            sampledEvaluations.reset();
+        }
+
+        boolean profile(T t) {
+            evaluations.increment();
+            boolean result;
+            if (ThreadLocalRandom.current().nextInt(TIMING_SAMPLE) == 0) {
+                long start = System.nanoTime();
+                result = evaluateProfiled(t);
+                sampledNanos.add(System.nanoTime() - start);
+                sampledEvaluations.increment();
+            } else {
+                result = evaluateProfiled(t);
+            }
+            if (result) {
+                hits.increment();
+            }
+            return result;
+        }
+
+        double averageNanos() {
+            long sampled = sampledEvaluations.sum();
+            return sampled == 0 ? 0 : (double) sampledNanos.sum() / sampled;
+        }
+
+        double passRate() {
+            long n = evaluations.sum();
+            // no observations yet: assume a coin flip
+            return n == 0 ? 0.5 : (double) hits.sum() / n;
+        }
+    }
+
+    static class LeafEvaluator<T> extends Evaluator<T> {
+        private final String name;
+        private final Predicate<? super T> predicate;
+        private final boolean negated;
+
+        LeafEvaluator(String name, Predicate<? super T> predicate, boolean negated) {
+            this.name = name;
+            this.predicate = predicate;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean evaluate(T t) {
+            return predicate.test(t) != negated;
+        }
+
+        @Override
+        boolean evaluateProfiled(T t) {
+            return evaluate(t);
+        }
+
+        @Override
+        public String toString() {
+            return negated ? "!" + name : name;
+        }
+    }
+
+    static class JunctionEvaluator<T> extends Evaluator<T> {
+        private final boolean and;
+        private volatile Evaluator<T>[] operands;
+
+        JunctionEvaluator(boolean and, List<Evaluator<T>> operands) {
+            this.and = and;
+            // a generic array can't be created; the array only ever holds the Evaluator<T> operands
+            @SuppressWarnings("unchecked")
+            Evaluator<T>[] array = (Evaluator<T>[]) new Evaluator<?>[operands.size()];
+            this.operands = operands.toArray(array);
+        }
+
+        @Override
+        boolean evaluate(T t) {
+            // an and stops at the first false operand, an or at the first true one
+            for (Evaluator<T> operand : operands) {
+                if (operand.evaluate(t) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        @Override
+        boolean evaluateProfiled(T t) {
+            if (ThreadLocalRandom.current().nextInt(REORDER_INTERVAL) == 0) {
+                reorder();
+            }
+            for (Evaluator<T> operand : operands) {
+                if (operand.profile(t) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        @Override
+        void freeze() {
+            for (Evaluator<T> operand : operands) {
+                operand.freeze();
+            }
+            reorder();
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            for (Evaluator<T> operand : operands) {
+                operand.reset();
+            }
+        }
+
+        private void reorder() {
+            Evaluator<T>[] sorted = operands.clone();
+            // rank = expected cost / probability of short-circuiting here; lowest rank first
+            Arrays.sort(sorted, Comparator.comparingDouble(this::rank));
+            operands = sorted;
+        }
+
+        private double rank(Evaluator<T> operand) {
+            double shortCircuit = and ? 1 - operand.passRate() : operand.passRate();
+            return (operand.averageNanos() + 1) / Math.max(shortCircuit, 1e-6);
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(and ? " && " : " || ", "(", ")");
+            for (Evaluator<T> operand : operands) {
+                joiner.add(operand.toString());
+            }
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.chris.chap3;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * This is description.
+ * Growable int/long/double buffers, so that map/filter results don't need boxed Integer/Long/Double lists.
+ * Buffers can be cleared and reused to avoid allocating a new array per call.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 12:10
+ */
+public final class PrimitiveBuffer {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private PrimitiveBuffer() {
+    }
+
+    private static int grow(int capacity, int minCapacity) {
+        int newCapacity = capacity + (capacity >> 1) + 1;
+        return Math.max(newCapacity, minCapacity);
+    }
+
+    public static class OfInt {
+        private int[] values;
+        private int size;
+
+        public OfInt() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfInt(int initialCapacity) {
+            this.values = new int[initialCapacity];
+        }
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public void ensureCapacity(int minCapacity) {
+            if (minCapacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, minCapacity));
+            }
+        }
+
+        public void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        public IntStream stream() {
+            return Arrays.stream(values, 0, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    public static class OfLong {
+        private long[] values;
+        private int size;
+
+        public OfLong() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfLong(int initialCapacity) {
+            this.values = new long[initialCapacity];
+        }
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            values[size++] = value;
+        }
+
+        public long get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public void ensureCapacity(int minCapacity) {
+            if (minCapacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, minCapacity));
+            }
+        }
+
+        public void forEach(LongConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        public LongStream stream() {
+            return Arrays.stream(values, 0, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    public static class OfDouble {
+        private double[] values;
+        private int size;
+
+        public OfDouble() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public OfDouble(int initialCapacity) {
+            this.values = new double[initialCapacity];
+        }
+
+        public void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length, size + 1));
+            }
+            values[size++] = value;
+        }
+
+        public double get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public void ensureCapacity(int minCapacity) {
+            if (minCapacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, minCapacity));
+            }
+        }
+
+        public void forEach(DoubleConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(values[i]);
+            }
+        }
+
+        public double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        public DoubleStream stream() {
+            return Arrays.stream(values, 0, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.chris.chap3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * This is description.
+ * A fused text transformation pipeline, the batch counterpart of addHeader.andThen(checkSpelling).andThen(addFooter):
+ * all stages work on one reusable per-thread StringBuilder instead of creating a String per stage, regular
+ * expressions are compiled once when the pipeline is built, and batches of documents are spread across cores.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 13:02
+ */
+public class TextPipeline {
+    // about one document out of TIMING_SAMPLE is timed per stage
+    private static final int TIMING_SAMPLE = 64;
+
+    private final Stage[] stages;
+    private final ThreadLocal<Context> contexts;
+
+    private TextPipeline(List<Stage> stages) {
+        this.stages = stages.toArray(new Stage[0]);
+        this.contexts = ThreadLocal.withInitial(() -> new Context(this.stages.length));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String apply(CharSequence text) {
+        return apply(text, contexts.get()).toString();
+    }
+
+    /**
+     * Appends the transformed text to out, without creating intermediate Strings.
+     */
+    public void apply(CharSequence text, StringBuilder out) {
+        out.append(apply(text, contexts.get()));
+    }
+
+    public List<String> applyAll(List<String> documents) {
+        return applyAll(documents, ForkJoinPool.commonPool());
+    }
+
+    public List<String> applyAll(List<String> documents, ForkJoinPool pool) {
+        try {
+            return pool.submit(() -> documents.parallelStream()
+                    .map(this::apply)
+                    .collect(toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public List<StageStats> stats() {
+        List<StageStats> stats = new ArrayList<>(stages.length);
+        for (Stage stage : stages) {
+            long sampled = stage.sampledDocuments.sum();
+            stats.add(new StageStats(stage.name, stage.documents.sum(),
+                    sampled == 0 ? 0 : (double) stage.sampledNanos.sum() / sampled));
+        }
+        return stats;
+    }
+
+    private StringBuilder apply(CharSequence text, Context context) {
+        context.current.setLength(0);
+        context.current.append(text);
+        boolean timed = ThreadLocalRandom.current().nextInt(TIMING_SAMPLE) == 0;
+        for (int i = 0; i < stages.length; i++) {
+            Stage stage = stages[i];
+            if (timed) {
+                long start = System.nanoTime();
+                stage.apply(context, i);
+                stage.sampledNanos.add(System.nanoTime() - start);
+                stage.sampledDocuments.increment();
+            } else {
+                stage.apply(context, i);
+            }
+            stage.documents.increment();
+        }
+        return context.current;
+    }
+
+    public static class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+
+        public Builder prepend(String name, String prefix) {
+            Stage last = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+            if (last instanceof Prepend) {
+                // prepend(a) then prepend(b) == prepend(b + a)
+                stages.set(stages.size() - 1, new Prepend(last.name + "+" + name, prefix + ((Prepend) last).prefix));
+            } else {
+                stages.add(new Prepend(name, prefix));
+            }
+            return this;
+        }
+
+        public Builder append(String name, String suffix) {
+            Stage last = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+            if (last instanceof Append) {
+                stages.set(stages.size() - 1, new Append(last.name + "+" + name, ((Append) last).suffix + suffix));
+            } else {
+                stages.add(new Append(name, suffix));
+            }
+            return this;
+        }
+
+        /**
+         * Replaces every occurrence of the literal target, like String.replace.
+         */
+        public Builder replace(String name, String target, String replacement) {
+            if (target.isEmpty()) {
+                throw new IllegalArgumentException("target must not be empty");
+            }
+            stages.add(new ReplaceLiteral(name, target, replacement));
+            return this;
+        }
+
+        /**
+         * Replaces every match of the regex with the literal replacement; the pattern is compiled once here.
+         */
+        public Builder replaceAll(String name, String regex, String replacement) {
+            stages.add(new ReplaceRegex(name, Pattern.compile(regex), replacement));
+            return this;
+        }
+
+        public TextPipeline build() {
+            return new TextPipeline(new ArrayList<>(stages));
+        }
+    }
+
+    public static class StageStats {
+        private final String name;
+        private final long documents;
+        private final double averageNanos;
+
+        StageStats(String name, long documents, double averageNanos) {
+            this.name = name;
+            this.documents = documents;
+            this.averageNanos = averageNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+
+        public double getAverageNanos() {
+            return averageNanos;
+        }
+
+        public double getDocumentsPerSecond() {
+            return averageNanos == 0 ? 0 : 1e9 / averageNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "StageStats{" +
+                    "name='" + name + '\'' +
+                    ", documents=" + documents +
+                    ", documentsPerSecond=" + String.format("%.0f", getDocumentsPerSecond()) +
+                    '}';
+        }
+    }
+
+    /**
+     * Per-thread working state: the text being transformed, a spare buffer for stages
+     * that rewrite the whole text, and one reusable Matcher per regex stage.
+     */
+    private static class Context {
+        StringBuilder current = new StringBuilder();
+        StringBuilder spare = new StringBuilder();
+        final Matcher[] matchers;
+
+        Context(int stageCount) {
+            this.matchers = new Matcher[stageCount];
+        }
+
+        void swap() {
+            StringBuilder tmp = current;
+            current = spare;
+            spare = tmp;
+        }
+    }
+
+    private abstract static class Stage {
+        final String name;
+        final LongAdder documents = new LongAdder();
+        final LongAdder sampledDocuments = new LongAdder();
+        final LongAdder sampledNanos = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        abstract void apply(Context context, int index);
+    }
+
+    private static class Prepend extends Stage {
+        final String prefix;
+
+        Prepend(String name, String prefix) {
+            super(name);
+            this.prefix = prefix;
+        }
+
+        @Override
+        void apply(Context context, int index) {
+            context.current.insert(0, prefix);
+        }
+    }
+
+    private static class Append extends Stage {
+        final String suffix;
+
+        Append(String name, String suffix) {
+            super(name);
+            this.suffix = suffix;
+        }
+
+        @Override
+        void apply(Context context, int index) {
+            context.current.append(suffix);
+        }
+    }
+
+    private static class ReplaceLiteral extends Stage {
+        private final String target;
+        private final String replacement;
+
+        ReplaceLiteral(String name, String target, String replacement) {
+            super(name);
+            this.target = target;
+            this.replacement = replacement;
+        }
+
+        @Override
+        void apply(Context context, int index) {
+            StringBuilder in = context.current;
+            int match = in.indexOf(target);
+            if (match < 0) {
+                return;
+            }
+            StringBuilder out = context.spare;
+            out.setLength(0);
+            int from = 0;
+            while (match >= 0) {
+                out.append(in, from, match).append(replacement);
+                from = match + target.length();
+                match = in.indexOf(target, from);
+            }
+            out.append(in, from, in.length());
+            context.swap();
+        }
+    }
+
+    private static class ReplaceRegex extends Stage {
+        private final Pattern pattern;
+        private final String replacement;
+
+        ReplaceRegex(String name, Pattern pattern, String replacement) {
+            super(name);
+            this.pattern = pattern;
+            this.replacement = replacement;
+        }
+
+        @Override
+        void apply(Context context, int index) {
+            StringBuilder in = context.current;
+            Matcher matcher = context.matchers[index];
+            if (matcher == null) {
+                matcher = pattern.matcher(in);
+                context.matchers[index] = matcher;
+            } else {
+                matcher.reset(in);
+            }
+            if (!matcher.find()) {
+                return;
+            }
+            StringBuilder out = context.spare;
+            out.setLength(0);
+            int from = 0;
+            do {
+                out.append(in, from, matcher.start()).append(replacement);
+                from = matcher.end();
+            } while (matcher.find());
+            out.append(in, from, in.length());
+            context.swap();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.chris.chap4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * This is description.
+ * A menu with a calorie-sorted index and per-type and per-vegetarian partitions (each calorie-sorted too),
+ * so that queries like getCalories() < 400 or type == MEAT && getCalories() > 300 are answered by a
+ * binary search plus a partition lookup, O(log n + k), instead of a full scan. Dishes with the same
+ * calories keep insertion order, like sorted(comparing(Dish::getCalories)) on the menu list.
+ * stream() keeps the existing stream pipelines working.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 17:20
+ */
+public class DishCatalog {
+    private final List<Dish> dishes = new ArrayList<>();
+    private final CalorieIndex all = new CalorieIndex();
+    private final Map<Dish.Type, CalorieIndex> byType = new EnumMap<>(Dish.Type.class);
+    private final CalorieIndex vegetarian = new CalorieIndex();
+    private final CalorieIndex nonVegetarian = new CalorieIndex();
+
+    public DishCatalog() {
+        for (Dish.Type type : Dish.Type.values()) {
+            byType.put(type, new CalorieIndex());
+        }
+    }
+
+    public DishCatalog(Collection<Dish> menu) {
+        this();
+        addAll(menu);
+    }
+
+    public void add(Dish dish) {
+        dishes.add(dish);
+        all.insert(dish);
+        byType.get(dish.getType()).insert(dish);
+        (dish.isVegetarian() ? vegetarian : nonVegetarian).insert(dish);
+    }
+
+    /**
+     * Appends the dishes to every index and sorts each index once, instead of one shifting insert per dish.
+     */
+    public void addAll(Collection<Dish> menu) {
+        for (Dish dish : menu) {
+            dishes.add(dish);
+            all.append(dish);
+            byType.get(dish.getType()).append(dish);
+            (dish.isVegetarian() ? vegetarian : nonVegetarian).append(dish);
+        }
+        all.sort();
+        for (CalorieIndex index : byType.values()) {
+            index.sort();
+        }
+        vegetarian.sort();
+        nonVegetarian.sort();
+    }
+
+    public int size() {
+        return dishes.size();
+    }
+
+    /**
+     * @return the dishes with minInclusive <= calories < maxExclusive, sorted by calories
+     */
+    public List<Dish> caloriesBetween(int minInclusive, int maxExclusive) {
+        return all.range(minInclusive, maxExclusive);
+    }
+
+    public List<Dish> caloriesLessThan(int calories) {
+        return all.range(Integer.MIN_VALUE, calories);
+    }
+
+    public List<Dish> caloriesGreaterThan(int calories) {
+        return all.rangeAbove(calories);
+    }
+
+    public List<Dish> byType(Dish.Type type) {
+        return byType.get(type).all();
+    }
+
+    public List<Dish> byType(Dish.Type type, int minInclusive, int maxExclusive) {
+        return byType.get(type).range(minInclusive, maxExclusive);
+    }
+
+    public List<Dish> vegetarian(boolean vegetarian) {
+        return (vegetarian ? this.vegetarian : nonVegetarian).all();
+    }
+
+    public List<Dish> vegetarian(boolean vegetarian, int minInclusive, int maxExclusive) {
+        return (vegetarian ? this.vegetarian : nonVegetarian).range(minInclusive, maxExclusive);
+    }
+
+    /**
+     * The dishes in insertion order, for the usual stream pipelines.
+     */
+    public Stream<Dish> stream() {
+        return dishes.stream();
+    }
+
+    /**
+     * Dishes sorted by calories, with their calories in a parallel int[] for the binary searches.
+     */
+    private static class CalorieIndex {
+        private int[] calories = new int[16];
+        private Dish[] dishes = new Dish[16];
+        private int size;
+
+        void insert(Dish dish) {
+            ensureCapacity(size + 1);
+            // after the dishes with the same calories, to keep insertion order among them
+            int position = firstIndexAbove(dish.getCalories());
+            System.arraycopy(calories, position, calories, position + 1, size - position);
+            System.arraycopy(dishes, position, dishes, position + 1, size - position);
+            calories[position] = dish.getCalories();
+            dishes[position] = dish;
+            size++;
+        }
+
+        /**
+         * All the dishes, including those with Integer.MAX_VALUE calories that no exclusive bound covers.
+         */
+        /**
+         * Adds the dish at the end, unsorted; sort must be called before the next lookup or insert.
+         */
+        void append(Dish dish) {
+            ensureCapacity(size + 1);
+            calories[size] = dish.getCalories();
+            dishes[size] = dish;
+            size++;
+        }
+
+        /**
+         * Sorts by calories; the sort is stable, so dishes with the same calories stay in insertion order.
+         */
+        void sort() {
+            Arrays.sort(dishes, 0, size, Comparator.comparingInt(Dish::getCalories));
+            for (int i = 0; i < size; i++) {
+                calories[i] = dishes[i].getCalories();
+            }
+        }
+
+        private void ensureCapacity(int minCapacity) {
+            if (minCapacity > calories.length) {
+                int newCapacity = Math.max(minCapacity, calories.length + (calories.length >> 1) + 1);
+                calories = Arrays.copyOf(calories, newCapacity);
+                dishes = Arrays.copyOf(dishes, newCapacity);
+            }
+        }
+
+        List<Dish> all() {
+            return Arrays.asList(Arrays.copyOf(dishes, size));
+        }
+
+        List<Dish> range(int minInclusive, int maxExclusive) {
+            int from = firstIndexAtLeast(minInclusive);
+            int to = Math.max(from, firstIndexAtLeast(maxExclusive));
+            return Arrays.asList(Arrays.copyOfRange(dishes, from, to));
+        }
+
+        List<Dish> rangeAbove(int calories) {
+            return Arrays.asList(Arrays.copyOfRange(dishes, firstIndexAbove(calories), size));
+        }
+
+        /**
+         * @return the index of the first dish with calories >= value
+         */
+        private int firstIndexAtLeast(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (calories[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the index of the first dish with calories > value
+         */
+        private int firstIndexAbove(int value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (calories[middle] <= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
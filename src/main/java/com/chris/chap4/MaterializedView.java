@@ -0,0 +1,222 @@
+package com.chris.chap4;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * This is description.
+ * The result of a filter/sorted/map pipeline, like lowCaloricDishesName, kept current under insert, update
+ * and delete of single source elements: each change costs O(log n) in a tree ordered by the comparator,
+ * instead of running the whole pipeline again. Elements equal by the comparator keep the order in which
+ * they were inserted, so a view loaded from a list holds the same result as the stream over that list.
+ * Source elements are looked up by equals/hashCode, which for Dish is identity.
+ * Listeners are told about the mapped values entering and leaving the view, in the order of the changes.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 19:30
+ */
+public class MaterializedView<T, R> {
+    private final Predicate<? super T> predicate;
+    private final Comparator<? super T> comparator;
+    private final Function<? super T, ? extends R> mapper;
+    private final TreeMap<Entry<T>, R> rows;
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private final List<ViewListener<? super R>> listeners = new CopyOnWriteArrayList<>();
+    // insertion sequence, breaks ties between elements equal by the comparator
+    private long sequence;
+
+    private MaterializedView(Predicate<? super T> predicate, Comparator<? super T> comparator,
+                             Function<? super T, ? extends R> mapper) {
+        this.predicate = predicate;
+        this.comparator = comparator;
+        this.mapper = mapper;
+        this.rows = new TreeMap<>(this::compare);
+    }
+
+    /**
+     * Starts a view over elements of type T, given as a type witness: MaterializedView.&lt;Dish&gt;from().
+     */
+    public static <T> Builder<T> from() {
+        return new Builder<>();
+    }
+
+    public interface ViewListener<R> {
+        void onInsert(R value);
+
+        void onDelete(R value);
+
+        /**
+         * An element of the view was replaced; by default a delete followed by an insert.
+         */
+        default void onUpdate(R oldValue, R newValue) {
+            onDelete(oldValue);
+            onInsert(newValue);
+        }
+    }
+
+    public void addListener(ViewListener<? super R> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ViewListener<? super R> listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void insertAll(Collection<? extends T> elements) {
+        for (T element : elements) {
+            insert(element);
+        }
+    }
+
+    /**
+     * @return true if the element passed the filter and is now part of the view
+     */
+    public synchronized boolean insert(T element) {
+        if (!predicate.test(element)) {
+            return false;
+        }
+        if (entries.containsKey(element)) {
+            throw new IllegalArgumentException("Already in the view: " + element);
+        }
+        R value = add(element, mapper.apply(element), sequence++);
+        for (ViewListener<? super R> listener : listeners) {
+            listener.onInsert(value);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the element was part of the view
+     */
+    public synchronized boolean delete(T element) {
+        Entry<T> entry = entries.remove(element);
+        if (entry == null) {
+            return false;
+        }
+        R value = rows.remove(entry);
+        for (ViewListener<? super R> listener : listeners) {
+            listener.onDelete(value);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces oldElement by newElement, e.g. a dish whose calories changed; either may be outside the view.
+     * The new element takes the place of the old one among elements equal by the comparator. Nothing is
+     * changed if newElement is already in the view as another element, or the mapper fails.
+     */
+    public synchronized void update(T oldElement, T newElement) {
+        Entry<T> entry = entries.get(oldElement);
+        boolean inserted = predicate.test(newElement);
+        R newValue = null;
+        if (inserted) {
+            Entry<T> existing = entries.get(newElement);
+            if (existing != null && existing != entry) {
+                throw new IllegalArgumentException("Already in the view: " + newElement);
+            }
+            newValue = mapper.apply(newElement);
+        }
+        R oldValue = null;
+        if (entry != null) {
+            entries.remove(oldElement);
+            oldValue = rows.remove(entry);
+        }
+        if (inserted) {
+            add(newElement, newValue, entry != null ? entry.sequence : sequence++);
+        }
+        for (ViewListener<? super R> listener : listeners) {
+            if (entry != null && inserted) {
+                listener.onUpdate(oldValue, newValue);
+            } else if (entry != null) {
+                listener.onDelete(oldValue);
+            } else if (inserted) {
+                listener.onInsert(newValue);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    /**
+     * A snapshot of the view, in order.
+     */
+    public synchronized List<R> toList() {
+        return new ArrayList<>(rows.values());
+    }
+
+    public Stream<R> stream() {
+        return toList().stream();
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    private R add(T element, R value, long sequence) {
+        Entry<T> entry = new Entry<>(element, sequence);
+        entries.put(element, entry);
+        rows.put(entry, value);
+        return value;
+    }
+
+    private int compare(Entry<T> a, Entry<T> b) {
+        int result = comparator.compare(a.element, b.element);
+        return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+    }
+
+    private static final class Entry<T> {
+        final T element;
+        final long sequence;
+
+        Entry(T element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Declares the view with the operations of the stream pipeline: filter, then sorted, then map.
+     */
+    public static final class Builder<T> {
+        private Predicate<? super T> predicate = t -> true;
+        private Comparator<? super T> comparator = (a, b) -> 0;
+
+        private Builder() {
+        }
+
+        @SuppressWarnings("unchecked")
+        public Builder<T> filter(Predicate<? super T> predicate) {
+            Predicate<T> previous = (Predicate<T>) this.predicate;
+            this.predicate = previous.and(predicate);
+            return this;
+        }
+
+        /**
+         * Without sorted the view keeps insertion order.
+         */
+        public Builder<T> sorted(Comparator<? super T> comparator) {
+            this.comparator = comparator;
+            return this;
+        }
+
+        public <R> MaterializedView<T, R> map(Function<? super T, ? extends R> mapper) {
+            return new MaterializedView<>(predicate, comparator, mapper);
+        }
+
+        public MaterializedView<T, T> build() {
+            return map(Function.identity());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.chris.chap4;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is description.
+ * Registry of the per-stage counters recorded by TracedStream. Every stage is also published through
+ * JMX as com.chris.chap4:type=StreamStage,pipeline=...,stage=... .
+ * Tracing is off unless enabled with setEnabled(true) or -Dchap4.tracing=true.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 16:10
+ */
+public class PipelineMetrics {
+    private static final String JMX_DOMAIN = "com.chris.chap4";
+    private static final ConcurrentMap<String, StageMetrics> STAGES = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = Boolean.getBoolean("chap4.tracing");
+
+    private PipelineMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        PipelineMetrics.enabled = enabled;
+    }
+
+    public static StageMetrics stage(String pipeline, int index, String operation) {
+        String stage = index + "-" + operation;
+        return STAGES.computeIfAbsent(pipeline + "/" + stage, key -> register(new StageMetrics(pipeline, index, operation), stage));
+    }
+
+    public static List<StageMetrics> stages() {
+        List<StageMetrics> stages = new ArrayList<>(STAGES.values());
+        stages.sort(Comparator.comparing(StageMetrics::getPipeline).thenComparingInt(StageMetrics::getIndex));
+        return stages;
+    }
+
+    public static List<StageMetrics> stages(String pipeline) {
+        List<StageMetrics> stages = new ArrayList<>();
+        for (StageMetrics stage : stages()) {
+            if (stage.getPipeline().equals(pipeline)) {
+                stages.add(stage);
+            }
+        }
+        return stages;
+    }
+
+    public static void reset() {
+        for (StageMetrics stage : STAGES.values()) {
+            stage.reset();
+        }
+    }
+
+    private static StageMetrics register(StageMetrics metrics, String stage) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=StreamStage,pipeline="
+                    + ObjectName.quote(metrics.getPipeline()) + ",stage=" + ObjectName.quote(stage));
+            server.registerMBean(new StandardMBean(metrics, StageMetricsMXBean.class, true), name);
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by an earlier registry instance, e.g. another class loader
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register stage " + stage + " of " + metrics.getPipeline(), e);
+        }
+        return metrics;
+    }
+
+    public interface StageMetricsMXBean {
+        String getPipeline();
+
+        int getIndex();
+
+        String getOperation();
+
+        long getElementsIn();
+
+        long getElementsOut();
+
+        long getNanos();
+
+        long getShortCircuits();
+    }
+
+    public static class StageMetrics implements StageMetricsMXBean {
+        private final String pipeline;
+        private final int index;
+        private final String operation;
+        final LongAdder elementsIn = new LongAdder();
+        final LongAdder elementsOut = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder shortCircuits = new LongAdder();
+
+        StageMetrics(String pipeline, int index, String operation) {
+            this.pipeline = pipeline;
+            this.index = index;
+            this.operation = operation;
+        }
+
+        @Override
+        public String getPipeline() {
+            return pipeline;
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String getOperation() {
+            return operation;
+        }
+
+        @Override
+        public long getElementsIn() {
+            return elementsIn.sum();
+        }
+
+        @Override
+        public long getElementsOut() {
+            return elementsOut.sum();
+        }
+
+        @Override
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        @Override
+        public long getShortCircuits() {
+            return shortCircuits.sum();
+        }
+
+        void reset() {
+            elementsIn.reset();
+            elementsOut.reset();
+            nanos.reset();
+            shortCircuits.reset();
+        }
+
+        @Override
+        public String toString() {
+            return pipeline + "#" + index + " " + operation +
+                    "{in=" + getElementsIn() +
+                    ", out=" + getElementsOut() +
+                    ", nanos=" + getNanos() +
+                    ", shortCircuits=" + getShortCircuits() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.chris.chap4;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * This is description.
+ * A stream can be traversed only once (4.3.1), so the same filter/map/sorted/limit/collect chain used to be
+ * rebuilt on every request. A Query is defined once from the same operations and executed many times
+ * against fresh sources. The plan is optimized when it is built:
+ * adjacent filters are fused into one predicate, adjacent maps into one function,
+ * limit is moved before the maps preceding it (map is one-to-one, so fewer elements are mapped),
+ * and sorted followed by limit becomes a bounded-heap top-K (see TopK).
+ * Executing walks the immutable stage arrays with a plain loop, no Stream objects are created; the only
+ * per-execution state is the limit counters. Stage functions must be stateless, as for streams.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 18:50
+ */
+public final class Query<S, R> {
+    private static final int FILTER = 0;
+    private static final int MAP = 1;
+    private static final int LIMIT = 2;
+    private static final int SORTED = 3;
+    private static final int TOP_K = 4;
+
+    // the optimized plan, one entry per stage
+    private final int[] kinds;
+    private final Object[] functions;
+    private final long[] limits;
+    private final Supplier<Object> supplier;
+    private final BiConsumer<Object, Object> accumulator;
+    private final Function<Object, R> finisher;
+
+    @SuppressWarnings("unchecked")
+    private Query(List<Stage> plan, Collector<?, ?, R> collector) {
+        int size = plan.size();
+        this.kinds = new int[size];
+        this.functions = new Object[size];
+        this.limits = new long[size];
+        for (int i = 0; i < size; i++) {
+            Stage stage = plan.get(i);
+            kinds[i] = stage.kind;
+            functions[i] = stage.function;
+            limits[i] = stage.limit;
+        }
+        Collector<Object, Object, R> c = (Collector<Object, Object, R>) collector;
+        this.supplier = c.supplier();
+        this.accumulator = c.accumulator();
+        this.finisher = c.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+                ? container -> (R) container : c.finisher();
+    }
+
+    /**
+     * Starts a query over elements of type T, given as a type witness: Query.&lt;Dish&gt;from().
+     */
+    public static <T> Builder<T, T> from() {
+        return new Builder<>(new ArrayList<>());
+    }
+
+    public R execute(Iterable<? extends S> source) {
+        Object container = supplier.get();
+        long[] counts = new long[kinds.length];
+        Iterable<?> input = source;
+        int from = 0;
+        while (true) {
+            // the stages up to the next sort (a barrier) are applied element by element
+            int to = from;
+            while (to < kinds.length && kinds[to] != SORTED && kinds[to] != TOP_K) {
+                to++;
+            }
+            if (to == kinds.length) {
+                run(input, from, to, counts, element -> accumulator.accept(container, element));
+                return finisher.apply(container);
+            }
+            input = sort(input, from, to, counts);
+            from = to + 1;
+        }
+    }
+
+    /**
+     * The optimized plan, e.g. [filter, limit(3), map].
+     */
+    public List<String> plan() {
+        List<String> plan = new ArrayList<>(kinds.length + 1);
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case FILTER:
+                    plan.add("filter");
+                    break;
+                case MAP:
+                    plan.add("map");
+                    break;
+                case LIMIT:
+                    plan.add("limit(" + limits[i] + ")");
+                    break;
+                case SORTED:
+                    plan.add("sorted");
+                    break;
+                default:
+                    plan.add("topK(" + limits[i] + ")");
+            }
+        }
+        plan.add("collect");
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return "Query" + plan();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> sort(Iterable<?> input, int from, int barrier, long[] counts) {
+        Comparator<Object> comparator = (Comparator<Object>) functions[barrier];
+        if (kinds[barrier] == TOP_K) {
+            Collector<Object, Object, List<Object>> topK = (Collector<Object, Object, List<Object>>)
+                    (Collector<?, ?, ?>) TopK.smallest((int) limits[barrier], comparator);
+            Object heap = topK.supplier().get();
+            BiConsumer<Object, Object> add = topK.accumulator();
+            run(input, from, barrier, counts, element -> add.accept(heap, element));
+            return topK.finisher().apply(heap);
+        }
+        List<Object> buffer = new ArrayList<>();
+        run(input, from, barrier, counts, buffer::add);
+        buffer.sort(comparator);
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run(Iterable<?> input, int from, int to, long[] counts, Consumer<Object> sink) {
+        boolean exhausted = false;
+        for (int i = from; i < to; i++) {
+            // a limit(0) lets nothing through
+            if (kinds[i] == LIMIT && counts[i] >= limits[i]) {
+                return;
+            }
+        }
+        elements:
+        for (Object element : input) {
+            Object value = element;
+            for (int i = from; i < to; i++) {
+                switch (kinds[i]) {
+                    case FILTER:
+                        if (!((Predicate<Object>) functions[i]).test(value)) {
+                            if (exhausted) {
+                                return;
+                            }
+                            continue elements;
+                        }
+                        break;
+                    case MAP:
+                        value = ((Function<Object, Object>) functions[i]).apply(value);
+                        break;
+                    default:
+                        // the element passes this limit, but once it is reached nothing else will
+                        if (++counts[i] == limits[i]) {
+                            exhausted = true;
+                        }
+                }
+            }
+            sink.accept(value);
+            if (exhausted) {
+                return;
+            }
+        }
+    }
+
+    private static final class Stage {
+        final int kind;
+        final Object function;
+        final long limit;
+
+        Stage(int kind, Object function, long limit) {
+            this.kind = kind;
+            this.function = function;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Records the operations; S is the source element type, T the element type after the stages so far.
+     */
+    public static final class Builder<S, T> {
+        private final List<Stage> stages;
+
+        private Builder(List<Stage> stages) {
+            this.stages = stages;
+        }
+
+        public Builder<S, T> filter(Predicate<? super T> predicate) {
+            return next(new Stage(FILTER, predicate, 0));
+        }
+
+        public <U> Builder<S, U> map(Function<? super T, ? extends U> mapper) {
+            return next(new Stage(MAP, mapper, 0));
+        }
+
+        @SuppressWarnings("unchecked")
+        public Builder<S, T> sorted() {
+            return sorted((Comparator<? super T>) Comparator.naturalOrder());
+        }
+
+        public Builder<S, T> sorted(Comparator<? super T> comparator) {
+            return next(new Stage(SORTED, comparator, 0));
+        }
+
+        public Builder<S, T> limit(long maxSize) {
+            if (maxSize < 0) {
+                throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+            }
+            return next(new Stage(LIMIT, null, maxSize));
+        }
+
+        public <R> Query<S, R> collect(Collector<? super T, ?, R> collector) {
+            return new Query<>(optimize(stages), collector);
+        }
+
+        private <U> Builder<S, U> next(Stage stage) {
+            List<Stage> next = new ArrayList<>(stages);
+            next.add(stage);
+            return new Builder<>(next);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Stage> optimize(List<Stage> stages) {
+        // move each limit before the maps preceding it, merging it with a limit it meets
+        List<Stage> plan = new ArrayList<>();
+        for (Stage stage : stages) {
+            if (stage.kind != LIMIT) {
+                plan.add(stage);
+                continue;
+            }
+            int position = plan.size();
+            while (position > 0 && plan.get(position - 1).kind == MAP) {
+                position--;
+            }
+            if (position > 0 && plan.get(position - 1).kind == LIMIT) {
+                Stage previous = plan.get(position - 1);
+                plan.set(position - 1, new Stage(LIMIT, null, Math.min(previous.limit, stage.limit)));
+            } else {
+                plan.add(position, stage);
+            }
+        }
+        // fuse adjacent filters and adjacent maps, turn sorted + limit into top-K
+        List<Stage> fused = new ArrayList<>();
+        for (int i = 0; i < plan.size(); i++) {
+            Stage stage = plan.get(i);
+            Stage last = fused.isEmpty() ? null : fused.get(fused.size() - 1);
+            if (last != null && last.kind == FILTER && stage.kind == FILTER) {
+                Predicate<Object> first = (Predicate<Object>) last.function;
+                Predicate<Object> second = (Predicate<Object>) stage.function;
+                fused.set(fused.size() - 1, new Stage(FILTER, (Predicate<Object>) t -> first.test(t) && second.test(t), 0));
+            } else if (last != null && last.kind == MAP && stage.kind == MAP) {
+                Function<Object, Object> first = (Function<Object, Object>) last.function;
+                Function<Object, Object> second = (Function<Object, Object>) stage.function;
+                fused.set(fused.size() - 1, new Stage(MAP, first.andThen(second), 0));
+            } else if (last != null && last.kind == SORTED && stage.kind == LIMIT && stage.limit <= Integer.MAX_VALUE) {
+                fused.set(fused.size() - 1, new Stage(TOP_K, last.function, stage.limit));
+            } else {
+                fused.add(stage);
+            }
+        }
+        return fused;
+    }
+}
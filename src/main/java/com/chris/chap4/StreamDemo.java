@@ -73,6 +73,61 @@ public class StreamDemo {
         // lowCaloricDishesName3: [season fruit, prawns, rice]
         System.out.println("lowCaloricDishesName3: " + lowCaloricDishesName3);
 
+        // parallelStream() only pays off for large sources with a high cost per element: let the executor decide
+        try (StreamExecutor executor = new StreamExecutor()) {
+            List<String> lowCaloricDishesName4 = executor.execute("lowCaloricDishesName", menu, dishes -> dishes
+                    .filter(dish -> dish.getCalories() < 400)
+                    .sorted(comparing(Dish::getCalories))
+                    .map(Dish::getName)
+                    .collect(toList()));
+            // lowCaloricDishesName4: [season fruit, prawns, rice]
+            System.out.println("lowCaloricDishesName4: " + lowCaloricDishesName4);
+            // QueryProfile{query='lowCaloricDishesName', nanosPerElement=NaN, parallelNanosPerElement=NaN, sequentialRuns=1, parallelRuns=0}
+            System.out.println(executor.profile("lowCaloricDishesName"));
+        }
+
+        // A materialized view keeps the same result current as single dishes change, without rerunning the pipeline
+        MaterializedView<Dish, String> lowCaloricDishesNameView = MaterializedView.<Dish>from()
+                .filter(dish -> dish.getCalories() < 400)
+                .sorted(comparing(Dish::getCalories))
+                .map(Dish::getName);
+        lowCaloricDishesNameView.insertAll(menu);
+        // lowCaloricDishesName5: [season fruit, prawns, rice]
+        System.out.println("lowCaloricDishesName5: " + lowCaloricDishesNameView);
+        lowCaloricDishesNameView.addListener(new MaterializedView.ViewListener<String>() {
+            @Override
+            public void onInsert(String value) {
+                // inserted: salad
+                System.out.println("inserted: " + value);
+            }
+
+            @Override
+            public void onDelete(String value) {
+                // deleted: rice
+                System.out.println("deleted: " + value);
+            }
+        });
+        lowCaloricDishesNameView.insert(new Dish("salad", true, 150, Dish.Type.OTHER));
+        lowCaloricDishesNameView.delete(menu.get(4));
+        // lowCaloricDishesName5: [season fruit, salad, prawns]
+        System.out.println("lowCaloricDishesName5: " + lowCaloricDishesNameView);
+
+        // When only the first K are wanted, a bounded heap avoids sorting the whole filtered set
+        List<Dish> twoLowestCaloricDishes = menu.stream()
+                .filter(dish -> dish.getCalories() < 400)
+                .collect(TopK.smallest(2, comparing(Dish::getCalories)));
+        // twoLowestCaloricDishes: [season fruit, prawns]
+        System.out.println("twoLowestCaloricDishes: " + twoLowestCaloricDishes);
+        // threeHighestCaloricDishes: [pork, beef, pizza]
+        System.out.println("threeHighestCaloricDishes: " + menu.parallelStream().collect(TopK.largest(3, comparing(Dish::getCalories))));
+
+        // A calorie-sorted index answers the same range query by binary search instead of a full scan
+        DishCatalog catalog = new DishCatalog(menu);
+        // lowCaloricDishes2: [season fruit, prawns, rice]
+        System.out.println("lowCaloricDishes2: " + catalog.caloriesLessThan(400));
+        // highCaloricMeatDishes: [chicken, beef, pork]
+        System.out.println("highCaloricMeatDishes: " + catalog.byType(Dish.Type.MEAT, 301, Integer.MAX_VALUE));
+
         // 4.2. Getting started with streams
         // No result is produced, and indeed no element from menu is even selected, until collect is invoked. You can think of it as if the method invocations in the chain are queued up until collect is called.
         // threeHighCaloricDishNames: [pork, beef, chicken]
@@ -101,6 +156,19 @@ public class StreamDemo {
         ///
         // stream.forEach(System.out::println);
 
+        // A Query is defined once and can be executed against any number of fresh sources
+        Query<Dish, List<String>> threeHighCaloricDishNamesQuery = Query.<Dish>from()
+                .filter(dish -> dish.getCalories() > 300)
+                .map(Dish::getName)
+                .limit(3)
+                .collect(toList());
+        // Query[filter, limit(3), map, collect]
+        System.out.println(threeHighCaloricDishNamesQuery);
+        // threeHighCaloricDishNames2: [pork, beef, chicken]
+        System.out.println("threeHighCaloricDishNames2: " + threeHighCaloricDishNamesQuery.execute(menu));
+        // threeHighCaloricDishNames3: [pork, beef, chicken]
+        System.out.println("threeHighCaloricDishNames3: " + threeHighCaloricDishNamesQuery.execute(menu));
+
         // 4.3.2. External vs. internal iteration
         // Listing 4.1. Collections: external iteration with a for-each loop
         ArrayList<String> names = new ArrayList<>();
@@ -150,6 +218,25 @@ public class StreamDemo {
             count: 3
          */
 
+        // The same pipeline traced per stage instead of printing from inside the lambdas
+        PipelineMetrics.setEnabled(true);
+        long tracedCount = TracedStream.of("quiz4.1", menu.stream())
+                .filter(dish -> dish.getCalories() > 300)
+                .map(Dish::getName)
+                .distinct()
+                .limit(3)
+                .count();
+        System.out.println("tracedCount: " + tracedCount);
+        /*
+            quiz4.1#0 filter{in=4, out=4, ...}
+            quiz4.1#1 map{in=4, out=4, ...}
+            quiz4.1#2 distinct{in=4, out=4, ...}
+            quiz4.1#3 limit{in=4, out=3, ..., shortCircuits=1}
+            (after the third dish the traced limit pulls a fourth to see that it cut the stream off)
+         */
+        PipelineMetrics.stages("quiz4.1").forEach(System.out::println);
+        PipelineMetrics.setEnabled(false);
+
         // 4.5. Summary
         // Here are some key concepts to take away from this chapter:
         // * A stream is a sequence of elements from a source that supports data processing operations.
@@ -0,0 +1,191 @@
+package com.chris.chap4;
+
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * This is description.
+ * Decides per query whether stream() or parallelStream() pays off, instead of always switching to
+ * parallelStream(): a query runs in parallel only if its source splits well (SIZED and SUBSIZED) and the
+ * estimated work, source size times the measured cost per element, is large enough to amortize the forking,
+ * and, once both have been measured, the parallel runs have been faster than the sequential ones. Costs are
+ * wall-clock nanos per element, averaged per mode; the first run in each mode is cold and not counted.
+ * The choice is not permanent: every EXPLORE_INTERVAL-th decision runs the slower mode once to refresh its
+ * average, so a mode that lost while the JIT, the pool or the data were different gets another chance.
+ * Parallel queries run on a dedicated, sized ForkJoinPool (a parallel stream started from inside a
+ * ForkJoinPool task runs in that pool), so request threads don't contend on the common pool.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 16:45
+ */
+public class StreamExecutor implements AutoCloseable {
+    // below this much estimated work (sequential nanos) forking costs more than it saves
+    private static final long DEFAULT_PARALLEL_THRESHOLD_NANOS = 1_000_000;
+    // smaller sources always run sequentially, whatever their measured cost (the first, cold run overstates it)
+    private static final long MIN_PARALLEL_SIZE = 1024;
+    // weight of the newest measurement in the moving average of the cost per element
+    private static final double SMOOTHING = 0.3;
+    // runs per mode left out of the averages (class loading, JIT compilation, pool threads starting)
+    private static final int WARM_UP_RUNS = 1;
+    // once both modes are measured, every this many decisions the slower mode runs once more
+    private static final long EXPLORE_INTERVAL = 16;
+
+    private final ForkJoinPool pool;
+    private final long parallelThresholdNanos;
+    private final ConcurrentMap<String, QueryProfile> profiles = new ConcurrentHashMap<>();
+
+    public StreamExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StreamExecutor(int parallelism) {
+        this(parallelism, DEFAULT_PARALLEL_THRESHOLD_NANOS);
+    }
+
+    public StreamExecutor(int parallelism, long parallelThresholdNanos) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.parallelThresholdNanos = parallelThresholdNanos;
+    }
+
+    /**
+     * Runs the pipeline over the source, sequentially or in parallel.
+     *
+     * @param query    identifies the pipeline, its cost per element is learnt across executions
+     * @param pipeline the operations to apply, e.g. s -> s.filter(...).map(...).collect(toList())
+     */
+    public <T, R> R execute(String query, Collection<T> source, Function<Stream<T>, R> pipeline) {
+        QueryProfile profile = profiles.computeIfAbsent(query, QueryProfile::new);
+        long size = source.size();
+        boolean parallel = shouldRunParallel(profile, source.spliterator());
+        long start = System.nanoTime();
+        R result = parallel ? executeParallel(source, pipeline) : pipeline.apply(source.stream());
+        long elapsed = System.nanoTime() - start;
+        profile.record(parallel, size, elapsed);
+        return result;
+    }
+
+    public QueryProfile profile(String query) {
+        return profiles.get(query);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private boolean shouldRunParallel(QueryProfile profile, Spliterator<?> spliterator) {
+        if (pool.getParallelism() < 2
+                || !spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)
+                || spliterator.estimateSize() < MIN_PARALLEL_SIZE) {
+            return false;
+        }
+        double nanosPerElement = profile.nanosPerElement;
+        if (Double.isNaN(nanosPerElement)
+                || spliterator.estimateSize() * nanosPerElement < parallelThresholdNanos) {
+            // not measured yet, the first runs are sequential and give the cost per element; or too little work
+            return false;
+        }
+        // try parallel until measured, then keep the faster mode but now and then re-measure the slower one
+        double parallelNanosPerElement = profile.parallelNanosPerElement;
+        if (Double.isNaN(parallelNanosPerElement)) {
+            return true;
+        }
+        boolean parallelFaster = parallelNanosPerElement < nanosPerElement;
+        return profile.decisions.incrementAndGet() % EXPLORE_INTERVAL == 0 ? !parallelFaster : parallelFaster;
+    }
+
+    private <T, R> R executeParallel(Collection<T> source, Function<Stream<T>, R> pipeline) {
+        try {
+            return pool.submit(() -> pipeline.apply(source.parallelStream())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public static class QueryProfile {
+        private final String query;
+        private final LongAdder sequentialRuns = new LongAdder();
+        private final LongAdder parallelRuns = new LongAdder();
+        // decisions made with both modes measured, drives the periodic re-exploration
+        private final AtomicLong decisions = new AtomicLong();
+        private volatile double nanosPerElement = Double.NaN;
+        private volatile double parallelNanosPerElement = Double.NaN;
+
+        QueryProfile(String query) {
+            this.query = query;
+        }
+
+        synchronized void record(boolean parallel, long size, long elapsedNanos) {
+            LongAdder runs = parallel ? parallelRuns : sequentialRuns;
+            runs.increment();
+            if (size == 0 || runs.sum() <= WARM_UP_RUNS) {
+                return;
+            }
+            double measured = (double) elapsedNanos / size;
+            if (parallel) {
+                parallelNanosPerElement = average(parallelNanosPerElement, measured);
+            } else {
+                nanosPerElement = average(nanosPerElement, measured);
+            }
+        }
+
+        private static double average(double average, double measured) {
+            return Double.isNaN(average) ? measured : SMOOTHING * measured + (1 - SMOOTHING) * average;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Sequential wall-clock nanos per element, NaN until measured.
+         */
+        public double getNanosPerElement() {
+            return nanosPerElement;
+        }
+
+        /**
+         * Parallel wall-clock nanos per element, NaN until measured.
+         */
+        public double getParallelNanosPerElement() {
+            return parallelNanosPerElement;
+        }
+
+        public long getSequentialRuns() {
+            return sequentialRuns.sum();
+        }
+
+        public long getParallelRuns() {
+            return parallelRuns.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "QueryProfile{" +
+                    "query='" + query + '\'' +
+                    ", nanosPerElement=" + String.format("%.1f", nanosPerElement) +
+                    ", parallelNanosPerElement=" + String.format("%.1f", parallelNanosPerElement) +
+                    ", sequentialRuns=" + getSequentialRuns() +
+                    ", parallelRuns=" + getParallelRuns() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.chris.chap4;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * This is description.
+ * Top-K/bottom-K collectors backed by a bounded heap, for pipelines like filter(...).sorted(...).limit(k):
+ * only k elements are kept at any time, so they take O(n log k) time and O(k) memory instead of sorting
+ * everything. In parallel, the per-thread heaps are merged. Ties keep encounter order, so the result is
+ * the same as sorted(comparator).limit(k).
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 15:40
+ */
+public class TopK {
+
+    /**
+     * The k smallest elements in ascending order, same as sorted(comparator).limit(k).collect(toList()).
+     */
+    public static <T> Collector<T, ?, List<T>> smallest(int k, Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        return Collector.of(
+                () -> new BoundedHeap<T>(k, comparator),
+                BoundedHeap::add,
+                BoundedHeap::merge,
+                BoundedHeap::toSortedList);
+    }
+
+    /**
+     * The k largest elements in descending order, same as sorted(comparator.reversed()).limit(k).collect(toList()).
+     */
+    public static <T> Collector<T, ?, List<T>> largest(int k, Comparator<? super T> comparator) {
+        return smallest(k, comparator.reversed());
+    }
+
+    public static <T> List<T> smallest(Stream<T> stream, int k, Comparator<? super T> comparator) {
+        return stream.collect(smallest(k, comparator));
+    }
+
+    public static <T> List<T> largest(Stream<T> stream, int k, Comparator<? super T> comparator) {
+        return stream.collect(largest(k, comparator));
+    }
+
+    private static class BoundedHeap<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        // entry order: by comparator, then by encounter order
+        private final Comparator<Entry<T>> entryOrder;
+        // the root is the largest kept entry, the first one to be evicted
+        private final PriorityQueue<Entry<T>> heap;
+        // number of elements seen, gives the encounter sequence of the next one
+        private long seen;
+
+        BoundedHeap(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.entryOrder = (a, b) -> {
+                int c = comparator.compare(a.value, b.value);
+                return c != 0 ? c : Long.compare(a.sequence, b.sequence);
+            };
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1 << 16)), entryOrder.reversed());
+        }
+
+        void add(T t) {
+            offer(t, seen++);
+        }
+
+        private void offer(T value, long sequence) {
+            if (heap.size() < k) {
+                heap.add(new Entry<>(value, sequence));
+            } else if (k > 0) {
+                Entry<T> largest = heap.peek();
+                int c = comparator.compare(value, largest.value);
+                // on a tie the kept element came first, so it stays
+                if (c < 0 || (c == 0 && sequence < largest.sequence)) {
+                    heap.poll();
+                    heap.add(new Entry<>(value, sequence));
+                }
+            }
+        }
+
+        /**
+         * Merges the heap of the right-hand part of the stream into this one.
+         */
+        BoundedHeap<T> merge(BoundedHeap<T> right) {
+            for (Entry<T> entry : right.heap) {
+                offer(entry.value, seen + entry.sequence);
+            }
+            seen += right.seen;
+            return this;
+        }
+
+        List<T> toSortedList() {
+            List<Entry<T>> entries = new ArrayList<>(heap);
+            entries.sort(entryOrder);
+            List<T> result = new ArrayList<>(entries.size());
+            for (Entry<T> entry : entries) {
+                result.add(entry.value);
+            }
+            return result;
+        }
+    }
+
+    private static class Entry<T> {
+        final T value;
+        final long sequence;
+
+        Entry(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.chris.chap4;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * A stream wrapper that records, for each filter/map/distinct/sorted/limit stage, the elements going in
+ * and out, the time spent in the stage's function and where limit cuts elements off, without touching the
+ * lambdas themselves (compare Quiz 4.1, which prints from inside filter and map).
+ * The function of distinct is the elements' hashCode and equals, that of sorted the comparator; limit has
+ * none, its time is that of the elements passing straight through it.
+ * A sequential limit never receives the elements past maxSize, so once it is reached the traced limit asks
+ * upstream for one more (or reads the remaining size, if known): if there is one, the limit cut the stream
+ * off. That one element is produced by the upstream stages and counted as entering the limit.
+ * In parallel the native limit is kept, and a cut-off is counted when more than maxSize elements reach it.
+ * The counters end up in PipelineMetrics. With tracing disabled the operations are applied to the
+ * underlying stream as they are; the only cost is one wrapper object per stage.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 16:10
+ */
+public final class TracedStream<T> {
+    private final Stream<T> stream;
+    private final String pipeline;
+    private final int stages;
+    private final boolean traced;
+
+    private TracedStream(Stream<T> stream, String pipeline, int stages, boolean traced) {
+        this.stream = stream;
+        this.pipeline = pipeline;
+        this.stages = stages;
+        this.traced = traced;
+    }
+
+    public static <T> TracedStream<T> of(String pipeline, Stream<T> source) {
+        return new TracedStream<>(source, pipeline, 0, PipelineMetrics.isEnabled());
+    }
+
+    public TracedStream<T> filter(Predicate<? super T> predicate) {
+        if (!traced) {
+            return next(stream.filter(predicate));
+        }
+        PipelineMetrics.StageMetrics metrics = metrics("filter");
+        return next(stream.filter(t -> {
+            long start = System.nanoTime();
+            boolean result = predicate.test(t);
+            metrics.nanos.add(System.nanoTime() - start);
+            metrics.elementsIn.increment();
+            if (result) {
+                metrics.elementsOut.increment();
+            }
+            return result;
+        }));
+    }
+
+    public <R> TracedStream<R> map(Function<? super T, ? extends R> mapper) {
+        if (!traced) {
+            return next(stream.map(mapper));
+        }
+        PipelineMetrics.StageMetrics metrics = metrics("map");
+        return next(stream.map(t -> {
+            long start = System.nanoTime();
+            R result = mapper.apply(t);
+            metrics.nanos.add(System.nanoTime() - start);
+            metrics.elementsIn.increment();
+            metrics.elementsOut.increment();
+            return result;
+        }));
+    }
+
+    public TracedStream<T> distinct() {
+        if (!traced) {
+            return next(stream.distinct());
+        }
+        PipelineMetrics.StageMetrics metrics = metrics("distinct");
+        return next(stream.map(t -> {
+                    metrics.elementsIn.increment();
+                    return new TimedKey<>(t, metrics);
+                })
+                .distinct()
+                .map(key -> {
+                    metrics.elementsOut.increment();
+                    return key.element;
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    public TracedStream<T> sorted() {
+        return sorted((Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    public TracedStream<T> sorted(Comparator<? super T> comparator) {
+        if (!traced) {
+            return next(stream.sorted(comparator));
+        }
+        PipelineMetrics.StageMetrics metrics = metrics("sorted");
+        // the time of a sort is the time spent comparing
+        Comparator<T> timedComparator = (a, b) -> {
+            long start = System.nanoTime();
+            int result = comparator.compare(a, b);
+            metrics.nanos.add(System.nanoTime() - start);
+            return result;
+        };
+        return next(stream.peek(t -> metrics.elementsIn.increment())
+                .sorted(timedComparator)
+                .peek(t -> metrics.elementsOut.increment()));
+    }
+
+    public TracedStream<T> limit(long maxSize) {
+        if (!traced) {
+            return next(stream.limit(maxSize));
+        }
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(Long.toString(maxSize));
+        }
+        PipelineMetrics.StageMetrics metrics = metrics("limit");
+        boolean parallel = stream.isParallel();
+        AtomicLong arrived = new AtomicLong();
+        ThreadLocal<Stamp> stamps = ThreadLocal.withInitial(Stamp::new);
+        Stream<T> counted = stream.peek(t -> {
+            metrics.elementsIn.increment();
+            // in parallel, at most maxSize elements get through, so one more arriving is cut off
+            if (parallel && arrived.incrementAndGet() == maxSize + 1) {
+                metrics.shortCircuits.increment();
+            }
+            Stamp stamp = stamps.get();
+            stamp.element = t;
+            stamp.start = System.nanoTime();
+        });
+        Stream<T> limited = parallel ? counted.limit(maxSize)
+                : StreamSupport.stream(new LimitSpliterator<>(counted.spliterator(), maxSize, metrics), false)
+                .onClose(counted::close);
+        return next(limited.peek(t -> {
+            long end = System.nanoTime();
+            metrics.elementsOut.increment();
+            // only elements coming straight through on this thread, not those a parallel limit buffered
+            Stamp stamp = stamps.get();
+            if (stamp.element == t) {
+                metrics.nanos.add(end - stamp.start);
+                stamp.element = null;
+            }
+        }));
+    }
+
+    /**
+     * The underlying stream, for terminal operations not covered here.
+     */
+    public Stream<T> stream() {
+        return stream;
+    }
+
+    public <R, A> R collect(Collector<? super T, A, R> collector) {
+        return stream.collect(collector);
+    }
+
+    public long count() {
+        return stream.count();
+    }
+
+    public void forEach(Consumer<? super T> action) {
+        stream.forEach(action);
+    }
+
+    private PipelineMetrics.StageMetrics metrics(String operation) {
+        return PipelineMetrics.stage(pipeline, stages, operation);
+    }
+
+    private <R> TracedStream<R> next(Stream<R> next) {
+        return new TracedStream<>(next, pipeline, stages + 1, traced);
+    }
+
+    /**
+     * A sequential limit that, once maxSize elements have passed, checks whether upstream had more.
+     */
+    private static final class LimitSpliterator<T> implements Spliterator<T> {
+        private final Spliterator<T> upstream;
+        private final PipelineMetrics.StageMetrics metrics;
+        private long remaining;
+        private boolean done;
+
+        LimitSpliterator(Spliterator<T> upstream, long maxSize, PipelineMetrics.StageMetrics metrics) {
+            this.upstream = upstream;
+            this.remaining = maxSize;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (done) {
+                return false;
+            }
+            if (remaining > 0) {
+                if (upstream.tryAdvance(action)) {
+                    remaining--;
+                    return true;
+                }
+                done = true;
+                return false;
+            }
+            done = true;
+            boolean more = upstream.hasCharacteristics(SIZED) ? upstream.estimateSize() > 0
+                    : upstream.tryAdvance(t -> {
+                    });
+            if (more) {
+                metrics.shortCircuits.increment();
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return done ? 0 : Math.min(remaining, upstream.estimateSize());
+        }
+
+        @Override
+        public int characteristics() {
+            return upstream.characteristics() & ~(SIZED | SUBSIZED);
+        }
+    }
+
+    /**
+     * The element that last entered a stage on a thread, and when.
+     */
+    private static final class Stamp {
+        Object element;
+        long start;
+    }
+
+    /**
+     * Wraps an element for distinct, timing its hashCode and equals.
+     */
+    private static final class TimedKey<T> {
+        final T element;
+        private final PipelineMetrics.StageMetrics metrics;
+
+        TimedKey(T element, PipelineMetrics.StageMetrics metrics) {
+            this.element = element;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int hashCode() {
+            long start = System.nanoTime();
+            int hash = Objects.hashCode(element);
+            metrics.nanos.add(System.nanoTime() - start);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof TimedKey)) {
+                return false;
+            }
+            long start = System.nanoTime();
+            boolean equal = Objects.equals(element, ((TimedKey<?>) other).element);
+            metrics.nanos.add(System.nanoTime() - start);
+            return equal;
+        }
+    }
+}
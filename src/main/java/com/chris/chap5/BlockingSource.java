@@ -0,0 +1,209 @@
+package com.chris.chap5;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * A stream source fed by blocking producers (queues, sockets) instead of an in-memory Arrays.asList menu.
+ * Producers put into a bounded buffer and block while it is full, so a slow pipeline slows the producers
+ * down (backpressure) and memory stays bounded by the buffer capacity, however fast the events arrive.
+ * The stream drains the buffer in batches and ends once every producer has returned; a producer failure
+ * is rethrown by the stream.
+ * Producers, and pipelines started with submit, run on virtual threads when the JDK has them (JDK 21+),
+ * otherwise on a small pool of daemon threads, one per producer.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 19:50
+ */
+public class BlockingSource<T> implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+    // put by the last producer to return, after its last element
+    private static final Object END = new Object();
+
+    private final List<Producer<? extends T>> producers;
+    private final BlockingQueue<Object> buffer;
+    private final ExecutorService executor;
+    private final AtomicInteger running;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Produces elements by calling sink.put, which blocks while the buffer is full.
+     */
+    public interface Producer<T> {
+        void produce(Sink<T> sink) throws Exception;
+    }
+
+    public interface Sink<T> {
+        void put(T element) throws InterruptedException;
+    }
+
+    public BlockingSource(List<? extends Producer<? extends T>> producers) {
+        this(DEFAULT_CAPACITY, producers);
+    }
+
+    public BlockingSource(int capacity, List<? extends Producer<? extends T>> producers) {
+        if (producers.isEmpty()) {
+            throw new IllegalArgumentException("At least one producer is needed");
+        }
+        this.producers = new ArrayList<>(producers);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.running = new AtomicInteger(producers.size());
+        // one thread per producer, plus one for a pipeline started with submit
+        this.executor = newExecutor(producers.size() + 1);
+    }
+
+    /**
+     * Starts the producers; the stream can be obtained only once, closing it stops the producers.
+     */
+    public Stream<T> stream() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("stream has already been obtained");
+        }
+        for (Producer<? extends T> producer : producers) {
+            executor.execute(() -> run(producer));
+        }
+        return StreamSupport.stream(new DrainingSpliterator(), false).onClose(this::close);
+    }
+
+    /**
+     * Runs the pipeline over stream() on the executor's threads.
+     */
+    public <R> Future<R> submit(Function<Stream<T>, R> pipeline) {
+        Stream<T> stream = stream();
+        return executor.submit(() -> {
+            try (Stream<T> s = stream) {
+                return pipeline.apply(s);
+            }
+        });
+    }
+
+    /**
+     * Stops the producers, blocked ones are interrupted; a stream still draining the buffer then ends.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void run(Producer<? extends T> producer) {
+        try {
+            producer.produce(buffer::put);
+        } catch (InterruptedException e) {
+            // closed
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            if (running.decrementAndGet() == 0 || failure.get() != null) {
+                end();
+            }
+        }
+    }
+
+    /**
+     * Puts END, blocking while the buffer is full. Once closed the stream may no longer be drained, so END
+     * replaces the oldest elements instead, and the interrupt status of the producer thread is left set.
+     */
+    private void end() {
+        if (!executor.isShutdown()) {
+            try {
+                buffer.put(END);
+                return;
+            } catch (InterruptedException e) {
+                // closed while blocked
+                Thread.currentThread().interrupt();
+            }
+        }
+        while (!buffer.offer(END)) {
+            buffer.poll();
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "blocking-source-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(threads, factory);
+        }
+    }
+
+    /**
+     * Takes elements from the buffer in batches, blocking while it is empty.
+     */
+    private class DrainingSpliterator extends Spliterators.AbstractSpliterator<T> {
+        private final ArrayDeque<Object> batch = new ArrayDeque<>(BATCH_SIZE);
+        private boolean ended;
+
+        DrainingSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (ended) {
+                return false;
+            }
+            if (batch.isEmpty()) {
+                fill();
+            }
+            Object element = batch.poll();
+            if (element == END) {
+                ended = true;
+                rethrowFailure();
+                return false;
+            }
+            action.accept((T) element);
+            return true;
+        }
+
+        private void fill() {
+            try {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void rethrowFailure() {
+            Throwable cause = failure.get();
+            if (cause == null) {
+                return;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Producer failed", cause);
+        }
+    }
+}
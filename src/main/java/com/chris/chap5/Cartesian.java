@@ -0,0 +1,159 @@
+package com.chris.chap5;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * The Cartesian product of two arrays or lists as a stream whose spliterator covers the whole i x j index
+ * space as one range 0 .. n * m, so a parallel stream splits it evenly; with
+ * list1.stream().flatMap(i -> list2.stream().map(...)) only the outer stream is split.
+ * A pair predicate is evaluated on the primitive indices (or, for int arrays, values) before the pair is
+ * built, so rejected pairs cost no allocation.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 21:10
+ */
+public final class Cartesian {
+
+    private Cartesian() {
+    }
+
+    @FunctionalInterface
+    public interface IntPairPredicate {
+        boolean test(int i, int j);
+    }
+
+    @FunctionalInterface
+    public interface IntPairFunction<R> {
+        R apply(int i, int j);
+    }
+
+    /**
+     * All pairs {a[i], b[j]}, in the order of the nested flatMap.
+     */
+    public static Stream<int[]> cartesian(int[] a, int[] b) {
+        return indices(a.length, b.length, null, (i, j) -> new int[]{a[i], b[j]});
+    }
+
+    /**
+     * The pairs {a[i], b[j]} for which the predicate holds on the values a[i], b[j].
+     */
+    public static Stream<int[]> cartesian(int[] a, int[] b, IntPairPredicate valuePredicate) {
+        return indices(a.length, b.length, (i, j) -> valuePredicate.test(a[i], b[j]), (i, j) -> new int[]{a[i], b[j]});
+    }
+
+    public static <R> Stream<R> cartesian(List<?> a, List<?> b, IntPairFunction<R> pairFunction) {
+        return indices(a.size(), b.size(), null, pairFunction);
+    }
+
+    /**
+     * The pairs for which the predicate holds on the indices i of a and j of b, built by pairFunction(i, j).
+     * Lists should be RandomAccess.
+     */
+    public static <R> Stream<R> cartesian(List<?> a, List<?> b, IntPairPredicate indexPredicate,
+                                          IntPairFunction<R> pairFunction) {
+        return indices(a.size(), b.size(), indexPredicate, pairFunction);
+    }
+
+    /**
+     * pairFunction(i, j) for 0 <= i < n, 0 <= j < m, the pairs rejected by the predicate (if any) left out.
+     */
+    public static <R> Stream<R> indices(int n, int m, IntPairPredicate predicate, IntPairFunction<R> pairFunction) {
+        return StreamSupport.stream(new PairSpliterator<>(0, (long) n * m, m, predicate, pairFunction), false);
+    }
+
+    /**
+     * Covers the linear indices k in [index, end) of the pairs (k / m, k % m).
+     */
+    private static final class PairSpliterator<R> implements Spliterator<R> {
+        private long index;
+        private final long end;
+        private final int m;
+        private final IntPairPredicate predicate;
+        private final IntPairFunction<R> pairFunction;
+        // (i, j) of index
+        private int i;
+        private int j;
+
+        PairSpliterator(long index, long end, int m, IntPairPredicate predicate, IntPairFunction<R> pairFunction) {
+            this.end = end;
+            this.m = m;
+            this.predicate = predicate;
+            this.pairFunction = pairFunction;
+            moveTo(index);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            while (index < end) {
+                int pairI = i;
+                int pairJ = j;
+                next();
+                if (predicate == null || predicate.test(pairI, pairJ)) {
+                    action.accept(pairFunction.apply(pairI, pairJ));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            long remaining = end - index;
+            int pairI = i;
+            int pairJ = j;
+            for (long k = 0; k < remaining; k++) {
+                if (predicate == null || predicate.test(pairI, pairJ)) {
+                    action.accept(pairFunction.apply(pairI, pairJ));
+                }
+                if (++pairJ == m) {
+                    pairJ = 0;
+                    pairI++;
+                }
+            }
+            moveTo(end);
+        }
+
+        @Override
+        public Spliterator<R> trySplit() {
+            long middle = index + (end - index) / 2;
+            if (middle == index) {
+                return null;
+            }
+            PairSpliterator<R> prefix = new PairSpliterator<>(index, middle, m, predicate, pairFunction);
+            moveTo(middle);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            // with a predicate the sizes are upper bounds
+            return predicate == null ? ORDERED | SIZED | SUBSIZED | IMMUTABLE : ORDERED | IMMUTABLE;
+        }
+
+        private void next() {
+            index++;
+            if (++j == m) {
+                j = 0;
+                i++;
+            }
+        }
+
+        private void moveTo(long index) {
+            this.index = index;
+            if (m > 0) {
+                this.i = (int) (index / m);
+                this.j = (int) (index % m);
+            }
+        }
+    }
+}
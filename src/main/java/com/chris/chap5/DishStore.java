@@ -0,0 +1,280 @@
+package com.chris.chap5;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * This is description.
+ * An off-heap store for dishes: each dish is a fixed-width 12 byte record in direct ByteBuffers
+ * (calories as an int, the name as offset and length into a shared UTF-8 string arena, the type and the
+ * vegetarian bit packed in one byte), instead of a Dish object with its String, boolean, int and enum.
+ * Records are read through a reusable flyweight Cursor, so a scan creates no garbage per row.
+ * Equal names are stored once in the arena, found through an open-addressing long[] table over the arena
+ * offsets whose probes compare the stored bytes, so deduplication keeps no String or boxed key per name.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 17:55
+ */
+public class DishStore {
+    // record layout
+    private static final int CALORIES = 0;
+    private static final int NAME_OFFSET = 4;
+    private static final int NAME_LENGTH = 8;
+    private static final int FLAGS = 10;
+    private static final int RECORD_SIZE = 12;
+    private static final int VEGETARIAN_BIT = 0x80;
+    private static final int TYPE_MASK = 0x7F;
+
+    // records live in fixed-size segments, so growing never copies them
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int RECORDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = RECORDS_PER_SEGMENT - 1;
+    private static final int INITIAL_ARENA_SIZE = 1 << 16;
+    private static final int INITIAL_NAME_SLOTS = 1 << 10;
+    private static final Dish.Type[] TYPES = Dish.Type.values();
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer arena = ByteBuffer.allocateDirect(INITIAL_ARENA_SIZE);
+    // distinct names: arena offset + 1 in the low 32 bits, the length in the next 16, the top 16 hash bits
+    private long[] names = new long[INITIAL_NAME_SLOTS];
+    private int nameCount;
+    private int size;
+
+    public DishStore() {
+    }
+
+    public DishStore(Collection<Dish> menu) {
+        for (Dish dish : menu) {
+            add(dish);
+        }
+    }
+
+    public int add(Dish dish) {
+        return add(dish.getName(), dish.isVegetarian(), dish.getCalories(), dish.getType());
+    }
+
+    public int add(String name, boolean vegetarian, int calories, Dish.Type type) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Name too long: " + nameBytes.length + " bytes");
+        }
+        Objects.requireNonNull(type, "type");
+        int row = size;
+        if ((row & SEGMENT_MASK) == 0) {
+            segments.add(ByteBuffer.allocateDirect(RECORDS_PER_SEGMENT * RECORD_SIZE));
+        }
+        ByteBuffer segment = segments.get(row >>> SEGMENT_SHIFT);
+        int base = (row & SEGMENT_MASK) * RECORD_SIZE;
+        segment.putInt(base + CALORIES, calories);
+        segment.putInt(base + NAME_OFFSET, intern(nameBytes));
+        segment.putShort(base + NAME_LENGTH, (short) nameBytes.length);
+        segment.put(base + FLAGS, (byte) ((vegetarian ? VEGETARIAN_BIT : 0) | type.ordinal()));
+        size++;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A new cursor; keep and reuse it, moving it with moveTo.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Visits every row with one reused cursor.
+     */
+    public void forEach(Consumer<Cursor> action) {
+        Cursor cursor = new Cursor();
+        for (int row = 0; row < size; row++) {
+            action.accept(cursor.moveTo(row));
+        }
+    }
+
+    public long sumCalories() {
+        long sum = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            ByteBuffer segment = segments.get(s);
+            int rows = Math.min(RECORDS_PER_SEGMENT, size - (s << SEGMENT_SHIFT));
+            for (int i = 0; i < rows; i++) {
+                sum += segment.getInt(i * RECORD_SIZE + CALORIES);
+            }
+        }
+        return sum;
+    }
+
+    public int count(IntPredicate caloriesPredicate) {
+        int count = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            ByteBuffer segment = segments.get(s);
+            int rows = Math.min(RECORDS_PER_SEGMENT, size - (s << SEGMENT_SHIFT));
+            for (int i = 0; i < rows; i++) {
+                if (caloriesPredicate.test(segment.getInt(i * RECORD_SIZE + CALORIES))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int intern(byte[] nameBytes) {
+        int hash = 0x811c9dc5;
+        for (byte b : nameBytes) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        hash = spread(hash);
+        long tag = (long) (hash >>> 16) << 48 | (long) nameBytes.length << 32;
+        int mask = names.length - 1;
+        int slot = hash & mask;
+        for (long name; (name = names[slot]) != 0; slot = (slot + 1) & mask) {
+            int offset = (int) name - 1;
+            if ((name & 0xFFFFFFFF00000000L) == tag && arenaEquals(offset, nameBytes)) {
+                return offset;
+            }
+        }
+        int offset = append(nameBytes);
+        names[slot] = tag | (offset + 1L);
+        // keep the load factor below 1/2
+        if (++nameCount * 2 > names.length) {
+            rehash();
+        }
+        return offset;
+    }
+
+    private boolean arenaEquals(int offset, byte[] nameBytes) {
+        for (int i = 0; i < nameBytes.length; i++) {
+            if (arena.get(offset + i) != nameBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the name table; the hashes are computed again from the arena.
+     */
+    private void rehash() {
+        long[] grown = new long[names.length * 2];
+        int mask = grown.length - 1;
+        for (long name : names) {
+            if (name == 0) {
+                continue;
+            }
+            int offset = (int) name - 1;
+            int length = (int) (name >>> 32) & 0xFFFF;
+            int hash = 0x811c9dc5;
+            for (int i = 0; i < length; i++) {
+                hash = (hash ^ arena.get(offset + i)) * 0x01000193;
+            }
+            int slot = spread(hash) & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = name;
+        }
+        names = grown;
+    }
+
+    private static int spread(int hash) {
+        // FNV-1a's low bits alone are weak, fold the high bits in
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Copies the bytes to the end of the arena, growing it if needed.
+     */
+    private int append(byte[] nameBytes) {
+        if (arena.remaining() < nameBytes.length) {
+            long newCapacity = Math.max((long) arena.capacity() * 2, (long) arena.position() + nameBytes.length);
+            if (newCapacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Name arena full");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) newCapacity);
+            arena.flip();
+            grown.put(arena);
+            arena = grown;
+        }
+        int position = arena.position();
+        arena.put(nameBytes);
+        return position;
+    }
+
+    /**
+     * A flyweight view of one record.
+     */
+    public final class Cursor {
+        private ByteBuffer segment;
+        private int base;
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        public Cursor moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+            }
+            this.row = row;
+            this.segment = segments.get(row >>> SEGMENT_SHIFT);
+            this.base = (row & SEGMENT_MASK) * RECORD_SIZE;
+            return this;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCalories() {
+            return segment.getInt(base + CALORIES);
+        }
+
+        public boolean isVegetarian() {
+            return (segment.get(base + FLAGS) & VEGETARIAN_BIT) != 0;
+        }
+
+        public Dish.Type getType() {
+            return TYPES[segment.get(base + FLAGS) & TYPE_MASK];
+        }
+
+        public int getNameLength() {
+            return segment.getShort(base + NAME_LENGTH) & 0xFFFF;
+        }
+
+        /**
+         * A byte of the UTF-8 encoded name, without creating the String.
+         */
+        public byte getNameByte(int index) {
+            return arena.get(segment.getInt(base + NAME_OFFSET) + index);
+        }
+
+        /**
+         * Creates a String, prefer getNameLength/getNameByte in scans.
+         */
+        public String getName() {
+            byte[] bytes = new byte[getNameLength()];
+            int offset = segment.getInt(base + NAME_OFFSET);
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = arena.get(offset + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public Dish toDish() {
+            return new Dish(getName(), isVegetarian(), getCalories(), getType());
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
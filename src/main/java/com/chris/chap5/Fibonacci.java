@@ -0,0 +1,261 @@
+package com.chris.chap5;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * Fibonacci numbers F(from) .. F(to - 1) as a LongStream or a Stream of BigInteger, instead of
+ * Stream.iterate over int[] tuples (Quiz 5.4), which allocates per element, overflows int past F(46)
+ * without notice and can't be split. Any F(n) is computed in O(log n) steps by fast doubling,
+ * F(2k) = F(k) * (2F(k+1) - F(k)) and F(2k+1) = F(k)^2 + F(k+1)^2, so the spliterators split at the middle
+ * index by jumping there, and each part then adds its way along.
+ * longs is overflow-checked: F(92) is the last Fibonacci number that fits in a long, so a range past it is
+ * rejected. longsWrapping gives F(n) modulo 2^64 for any n, bigIntegers the exact values.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 20:30
+ */
+public final class Fibonacci {
+    public static final int MAX_LONG_INDEX = 92;
+
+    private Fibonacci() {
+    }
+
+    /**
+     * @throws ArithmeticException if F(n) doesn't fit in a long, n > 92
+     */
+    public static long fib(long n) {
+        checkIndex(n);
+        if (n > MAX_LONG_INDEX) {
+            throw new ArithmeticException("F(" + n + ") overflows a long, the largest index is " + MAX_LONG_INDEX);
+        }
+        // modulo 2^64 arithmetic is exact as long as the true value fits
+        return fibWrapping(n);
+    }
+
+    /**
+     * F(n) modulo 2^64.
+     */
+    public static long fibWrapping(long n) {
+        checkIndex(n);
+        long[] pair = new long[2];
+        jump(n, pair);
+        return pair[0];
+    }
+
+    public static BigInteger fibExact(long n) {
+        checkIndex(n);
+        return jumpExact(n)[0];
+    }
+
+    /**
+     * F(from) .. F(to - 1), overflow-checked: to - 1 must be at most 92 unless the range is empty.
+     */
+    public static LongStream longs(long from, long to) {
+        checkRange(from, to);
+        if (to > from && to - 1 > MAX_LONG_INDEX) {
+            throw new ArithmeticException("F(" + (to - 1) + ") overflows a long, the largest index is " + MAX_LONG_INDEX);
+        }
+        return longsWrapping(from, to);
+    }
+
+    /**
+     * F(from) .. F(to - 1) modulo 2^64.
+     */
+    public static LongStream longsWrapping(long from, long to) {
+        checkRange(from, to);
+        return StreamSupport.longStream(new LongSpliterator(from, to), false);
+    }
+
+    public static Stream<BigInteger> bigIntegers(long from, long to) {
+        checkRange(from, to);
+        return StreamSupport.stream(new BigIntegerSpliterator(from, to), false);
+    }
+
+    /**
+     * Sets pair to F(n), F(n + 1) modulo 2^64.
+     */
+    private static void jump(long n, long[] pair) {
+        long a = 0;
+        long b = 1;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            // (a, b) = (F(k), F(k+1)) -> (F(2k), F(2k+1))
+            long c = a * (2 * b - a);
+            long d = a * a + b * b;
+            if ((n >>> bit & 1) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = c + d;
+            }
+        }
+        pair[0] = a;
+        pair[1] = b;
+    }
+
+    private static BigInteger[] jumpExact(long n) {
+        BigInteger a = BigInteger.ZERO;
+        BigInteger b = BigInteger.ONE;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            BigInteger c = a.multiply(b.shiftLeft(1).subtract(a));
+            BigInteger d = a.multiply(a).add(b.multiply(b));
+            if ((n >>> bit & 1) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = c.add(d);
+            }
+        }
+        return new BigInteger[]{a, b};
+    }
+
+    private static void checkIndex(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative index: " + n);
+        }
+    }
+
+    private static void checkRange(long from, long to) {
+        checkIndex(from);
+        if (to < from) {
+            throw new IllegalArgumentException("to < from: " + to + " < " + from);
+        }
+    }
+
+    private static final class LongSpliterator implements Spliterator.OfLong {
+        private long index;
+        private final long end;
+        // F(index), F(index + 1)
+        private final long[] pair = new long[2];
+
+        LongSpliterator(long index, long end) {
+            this.index = index;
+            this.end = end;
+            jump(index, pair);
+        }
+
+        private LongSpliterator(long index, long end, long a, long b) {
+            this.index = index;
+            this.end = end;
+            this.pair[0] = a;
+            this.pair[1] = b;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= end) {
+                return false;
+            }
+            long a = pair[0];
+            pair[0] = pair[1];
+            pair[1] = a + pair[1];
+            index++;
+            action.accept(a);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            long a = pair[0];
+            long b = pair[1];
+            for (; index < end; index++) {
+                action.accept(a);
+                long next = a + b;
+                a = b;
+                b = next;
+            }
+            pair[0] = a;
+            pair[1] = b;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long middle = index + (end - index) / 2;
+            if (middle == index) {
+                return null;
+            }
+            LongSpliterator prefix = new LongSpliterator(index, middle, pair[0], pair[1]);
+            index = middle;
+            jump(middle, pair);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    private static final class BigIntegerSpliterator implements Spliterator<BigInteger> {
+        private long index;
+        private final long end;
+        // F(index), F(index + 1)
+        private BigInteger a;
+        private BigInteger b;
+
+        BigIntegerSpliterator(long index, long end) {
+            this.index = index;
+            this.end = end;
+            BigInteger[] pair = jumpExact(index);
+            this.a = pair[0];
+            this.b = pair[1];
+        }
+
+        private BigIntegerSpliterator(long index, long end, BigInteger a, BigInteger b) {
+            this.index = index;
+            this.end = end;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BigInteger> action) {
+            if (index >= end) {
+                return false;
+            }
+            BigInteger current = a;
+            a = b;
+            b = current.add(b);
+            index++;
+            action.accept(current);
+            return true;
+        }
+
+        @Override
+        public Spliterator<BigInteger> trySplit() {
+            long middle = index + (end - index) / 2;
+            if (middle == index) {
+                return null;
+            }
+            BigIntegerSpliterator prefix = new BigIntegerSpliterator(index, middle, a, b);
+            BigInteger[] pair = jumpExact(middle);
+            index = middle;
+            a = pair[0];
+            b = pair[1];
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+}
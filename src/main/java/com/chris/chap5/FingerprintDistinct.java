@@ -0,0 +1,214 @@
+package com.chris.chap5;
+
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * This is description.
+ * A distinct() for very many distinct elements: instead of keeping every element in a HashSet, only a
+ * 64-bit fingerprint of each is kept, in an open-addressing long[] table (8 bytes per distinct element,
+ * no objects). Two different elements with the same fingerprint would be merged, which for 64-bit
+ * fingerprints is negligible below billions of distinct elements.
+ * An opt-in Bloom filter mode bounds memory further at a configurable false-positive rate (a false
+ * positive drops a new element as if it were a duplicate). The tables are sharded, each shard with its own
+ * lock, so they are safe in parallel streams and hold up to 2^29 fingerprints per shard.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 18:30
+ */
+public class FingerprintDistinct {
+    private static final int DEFAULT_SHARDS = 64;
+
+    /**
+     * Keeps the fingerprints seen so far.
+     */
+    public interface FingerprintSet {
+        /**
+         * @return true if the fingerprint was not seen before
+         */
+        boolean add(long fingerprint);
+    }
+
+    /**
+     * Keeps the first element with each fingerprint. The set is thread-safe, so the stream may be made
+     * parallel before or after this call; in parallel, which of several equal elements is kept is unspecified,
+     * as for unordered().distinct(), while the kept elements stay in encounter order.
+     */
+    public static <T> Stream<T> distinct(Stream<T> stream, ToLongFunction<? super T> fingerprint) {
+        return distinct(stream, fingerprint, sharded(DEFAULT_SHARDS, LongOpenHashSet::new));
+    }
+
+    /**
+     * Probabilistic distinct() with a Bloom filter sized for the expected number of distinct elements;
+     * the same parallel semantics as distinct(stream, fingerprint).
+     */
+    public static <T> Stream<T> distinct(Stream<T> stream, ToLongFunction<? super T> fingerprint,
+                                         long expectedDistinct, double falsePositiveRate) {
+        long expectedPerShard = Math.max(1, expectedDistinct / DEFAULT_SHARDS);
+        return distinct(stream, fingerprint,
+                sharded(DEFAULT_SHARDS, () -> new BloomFilter(expectedPerShard, falsePositiveRate)));
+    }
+
+    /**
+     * @param seen must be thread-safe (see sharded) if the stream may run in parallel
+     */
+    public static <T> Stream<T> distinct(Stream<T> stream, ToLongFunction<? super T> fingerprint, FingerprintSet seen) {
+        return stream.filter(t -> seen.add(fingerprint.applyAsLong(t)));
+    }
+
+    public static Stream<String> distinctStrings(Stream<String> stream) {
+        return distinct(stream, FingerprintDistinct::fingerprint);
+    }
+
+    /**
+     * A 64-bit fingerprint of the characters: FNV-1a followed by a murmur3 finalizer to spread the bits.
+     */
+    public static long fingerprint(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash ^ text.length());
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public static FingerprintSet sharded(int shards, Supplier<? extends FingerprintSet> shardFactory) {
+        return new ShardedFingerprintSet(shards, shardFactory);
+    }
+
+    /**
+     * Open addressing with linear probing over a long[]; 0 is the empty slot, so fingerprint 0 is tracked apart.
+     */
+    public static class LongOpenHashSet implements FingerprintSet {
+        private static final int INITIAL_CAPACITY = 1 << 10;
+        // the largest power of two array length
+        private static final int MAX_CAPACITY = 1 << 30;
+
+        private long[] table = new long[INITIAL_CAPACITY];
+        private int size;
+        private boolean containsZero;
+
+        @Override
+        public boolean add(long fingerprint) {
+            if (fingerprint == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            if (insert(table, fingerprint)) {
+                // keep the load factor below 1/2
+                if (++size * 2 > table.length) {
+                    resize();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return size + (containsZero ? 1 : 0);
+        }
+
+        private static boolean insert(long[] table, long fingerprint) {
+            int mask = table.length - 1;
+            int slot = (int) mix(fingerprint) & mask;
+            while (true) {
+                long current = table[slot];
+                if (current == 0) {
+                    table[slot] = fingerprint;
+                    return true;
+                }
+                if (current == fingerprint) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            if (table.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Fingerprint table full at " + size + " fingerprints, use more shards");
+            }
+            long[] grown = new long[table.length * 2];
+            for (long fingerprint : table) {
+                if (fingerprint != 0) {
+                    insert(grown, fingerprint);
+                }
+            }
+            table = grown;
+        }
+    }
+
+    /**
+     * A Bloom filter over fingerprints, the k bit positions derived from the two halves of the fingerprint.
+     */
+    public static class BloomFilter implements FingerprintSet {
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+            if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+                throw new IllegalArgumentException("expectedInsertions must be positive and 0 < falsePositiveRate < 1");
+            }
+            // m = -n ln p / (ln 2)^2, k = m / n ln 2
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new long[(int) Math.max(1, (m + 63) / 64)];
+            this.bitCount = bits.length * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+        }
+
+        @Override
+        public boolean add(long fingerprint) {
+            long h1 = fingerprint;
+            long h2 = mix(fingerprint) | 1;
+            boolean added = false;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((bits[word] & mask) == 0) {
+                    bits[word] |= mask;
+                    added = true;
+                }
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Thread-safe set for parallel streams: the fingerprint picks a shard, and only that shard is locked.
+     */
+    static class ShardedFingerprintSet implements FingerprintSet {
+        private final FingerprintSet[] shards;
+
+        ShardedFingerprintSet(int shardCount, Supplier<? extends FingerprintSet> shardFactory) {
+            if (Integer.bitCount(shardCount) != 1) {
+                throw new IllegalArgumentException("shardCount must be a power of two: " + shardCount);
+            }
+            this.shards = new FingerprintSet[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = shardFactory.get();
+            }
+        }
+
+        @Override
+        public boolean add(long fingerprint) {
+            // the high bits pick the shard, the shard's table uses a re-mix of the whole fingerprint
+            FingerprintSet shard = shards[(int) (fingerprint >>> 40) & (shards.length - 1)];
+            synchronized (shard) {
+                return shard.add(fingerprint);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.chris.chap5;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This is description.
+ * Pythagorean triples a < b < c with c <= maxHypotenuse, enumerated with Euclid's formula instead of
+ * testing every pair (a, b) with sqrt as in 5.6.3: for coprime m > n > 0 with m - n odd,
+ * (m^2 - n^2, 2mn, m^2 + n^2) is a primitive triple, every primitive triple is obtained exactly once, and
+ * every other triple is a multiple k * (a, b, c) of one. The work is proportional to the number of triples.
+ * Triples come grouped by primitive triple (by m, then n, then k), not ordered by a as in 5.6.3.
+ * forEach hands the triples to a TripleConsumer without creating any object; stream() creates an int[]
+ * per triple, its spliterator splits the range of m for parallel streams.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 20:10
+ */
+public final class PythagoreanTriples {
+
+    private PythagoreanTriples() {
+    }
+
+    @FunctionalInterface
+    public interface TripleConsumer {
+        void accept(int a, int b, int c);
+    }
+
+    /**
+     * All triples with c <= maxHypotenuse, without allocation.
+     */
+    public static void forEach(int maxHypotenuse, TripleConsumer sink) {
+        forEach(2, maxM(maxHypotenuse) + 1, maxHypotenuse, true, sink);
+    }
+
+    public static void forEachPrimitive(int maxHypotenuse, TripleConsumer sink) {
+        forEach(2, maxM(maxHypotenuse) + 1, maxHypotenuse, false, sink);
+    }
+
+    /**
+     * The number of triples with c <= maxHypotenuse, counted in parallel over m without allocation.
+     */
+    public static long count(int maxHypotenuse) {
+        return IntStream.rangeClosed(2, maxM(maxHypotenuse))
+                .parallel()
+                .mapToLong(m -> {
+                    long count = 0;
+                    for (int n = (m & 1) == 0 ? 1 : 2; n < m; n += 2) {
+                        long c = (long) m * m + (long) n * n;
+                        if (c > maxHypotenuse) {
+                            break;
+                        }
+                        if (gcd(m, n) == 1) {
+                            // the multiples k * c <= maxHypotenuse
+                            count += maxHypotenuse / c;
+                        }
+                    }
+                    return count;
+                })
+                .sum();
+    }
+
+    /**
+     * The triples as {a, b, c}; parallel() splits the range of m.
+     */
+    public static Stream<int[]> stream(int maxHypotenuse) {
+        return StreamSupport.stream(spliterator(maxHypotenuse), false);
+    }
+
+    /**
+     * Split it, then call forEachRemaining(TripleConsumer) on the parts to go parallel without allocation.
+     */
+    public static TripleSpliterator spliterator(int maxHypotenuse) {
+        return new TripleSpliterator(2, maxM(maxHypotenuse) + 1, maxHypotenuse);
+    }
+
+    private static void forEach(int fromM, int toM, int maxHypotenuse, boolean multiples, TripleConsumer sink) {
+        for (int m = fromM; m < toM; m++) {
+            forEachOfM(m, maxHypotenuse, multiples, sink);
+        }
+    }
+
+    private static void forEachOfM(int m, int maxHypotenuse, boolean multiples, TripleConsumer sink) {
+        // m - n odd: n has the other parity of m
+        for (int n = (m & 1) == 0 ? 1 : 2; n < m; n += 2) {
+            long c = (long) m * m + (long) n * n;
+            if (c > maxHypotenuse) {
+                return;
+            }
+            if (gcd(m, n) != 1) {
+                continue;
+            }
+            int a = m * m - n * n;
+            int b = 2 * m * n;
+            if (a > b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            int kMax = multiples ? (int) (maxHypotenuse / c) : 1;
+            for (int k = 1; k <= kMax; k++) {
+                sink.accept(k * a, k * b, k * (int) c);
+            }
+        }
+    }
+
+    /**
+     * The largest m with m^2 + 1 <= maxHypotenuse.
+     */
+    private static int maxM(int maxHypotenuse) {
+        int m = (int) Math.sqrt(maxHypotenuse);
+        while ((long) m * m + 1 > maxHypotenuse && m > 0) {
+            m--;
+        }
+        return m;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Covers m in [fromM, toM). The number of triples for m falls roughly like 1/m, so the range is split
+     * where the estimated work, sum of maxHypotenuse / m over the range, is halved.
+     */
+    public static final class TripleSpliterator implements Spliterator<int[]> {
+        private int fromM;
+        private final int toM;
+        private final int maxHypotenuse;
+        // triples of the last m started by tryAdvance, as a, b, c
+        private int[] pending = new int[48];
+        private int pendingSize;
+        private int next;
+
+        TripleSpliterator(int fromM, int toM, int maxHypotenuse) {
+            this.fromM = fromM;
+            this.toM = toM;
+            this.maxHypotenuse = maxHypotenuse;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            // the triples of one m are buffered, then handed out one per call
+            while (next == pendingSize) {
+                if (fromM >= toM) {
+                    return false;
+                }
+                next = 0;
+                pendingSize = 0;
+                forEachOfM(fromM++, maxHypotenuse, true, this::buffer);
+            }
+            action.accept(new int[]{pending[next], pending[next + 1], pending[next + 2]});
+            next += 3;
+            return true;
+        }
+
+        private void buffer(int a, int b, int c) {
+            if (pendingSize + 3 > pending.length) {
+                pending = Arrays.copyOf(pending, pending.length * 2);
+            }
+            pending[pendingSize++] = a;
+            pending[pendingSize++] = b;
+            pending[pendingSize++] = c;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super int[]> action) {
+            forEachRemaining((a, b, c) -> action.accept(new int[]{a, b, c}));
+        }
+
+        /**
+         * The remaining triples without allocation.
+         */
+        public void forEachRemaining(TripleConsumer sink) {
+            for (; next < pendingSize; next += 3) {
+                sink.accept(pending[next], pending[next + 1], pending[next + 2]);
+            }
+            forEach(fromM, toM, maxHypotenuse, true, sink);
+            fromM = toM;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            // buffered triples come before the prefix, so a spliterator with some can't split
+            if (toM - fromM < 2 || next < pendingSize) {
+                return null;
+            }
+            // ln(middle / fromM) = ln(toM / middle): the geometric mean halves the sum of 1/m
+            int middle = (int) Math.sqrt((double) fromM * toM);
+            if (middle <= fromM || middle >= toM) {
+                middle = (fromM + toM) >>> 1;
+            }
+            TripleSpliterator prefix = new TripleSpliterator(fromM, middle, maxHypotenuse);
+            fromM = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // sum over m of maxHypotenuse / m^2 * m / 2 * (share of coprime pairs) ~ 0.3 * maxHypotenuse * ln(toM / fromM)
+            return fromM >= toM ? (pendingSize - next) / 3 : (long) (0.3 * maxHypotenuse * Math.log((double) toM / fromM)) + 1;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
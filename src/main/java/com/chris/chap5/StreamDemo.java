@@ -49,6 +49,20 @@ public class StreamDemo {
                 .collect(toList());
         System.out.println("vegetarianDishes2: " + vegetarianDishes2);
 
+        // the same pipeline over dishes arriving from blocking producers, buffered with backpressure
+        BlockingSource.Producer<Dish> kitchen = sink -> {
+            for (int i = 0; i < 500_000; i++) {
+                sink.put(menu.get(i % menu.size()));
+            }
+        };
+        try (BlockingSource<Dish> source = new BlockingSource<>(Arrays.asList(kitchen, kitchen))) {
+            long vegetarianDishCount = source.stream()
+                    .filter(Dish::isVegetarian)
+                    .count();
+            // vegetarianDishCount: 444444
+            System.out.println("vegetarianDishCount: " + vegetarianDishCount);
+        }
+
         // 5.1. Filtering and slicing
         // 5.1.1. Filtering with a predicate
         List<Dish> vegetarianMenu = menu.stream()
@@ -112,6 +126,14 @@ public class StreamDemo {
                 .collect(toList());
         System.out.println("stringList: " + stringList);
 
+        // distinct() on 64-bit fingerprints instead of a HashSet of every element
+        List<String> stringList2 = FingerprintDistinct.distinctStrings(Arrays.stream(arrayOfWords)
+                .map(word -> word.split(""))
+                .flatMap(Arrays::stream))
+                .collect(toList());
+        // stringList2: [G, o, d, b, y, e, W, r, l]
+        System.out.println("stringList2: " + stringList2);
+
         // Quiz 5.2: Mapping
         // 1. Given a list of numbers, how would you return a list of the square of each number? For
         // example, given [1, 2, 3, 4, 5] you should return [1, 4, 9, 16, 25].
@@ -167,6 +189,15 @@ public class StreamDemo {
         }
         System.out.println("pairs3: " + pairs3);
 
+        // method 3: one splittable source over all (i, j), filtered before any pair is built
+        int[] numbers3 = list1.stream().mapToInt(Integer::intValue).toArray();
+        int[] numbers4 = list2.stream().mapToInt(Integer::intValue).toArray();
+        List<String> pairs4 = Cartesian.cartesian(numbers3, numbers4, (i, j) -> (i + j) % 3 == 0)
+                .map(numberPair -> "(" + numberPair[0] + ", " + numberPair[1] + ")")
+                .collect(toList());
+        // pairs4: [(2, 4), (3, 3)]
+        System.out.println("pairs4: " + pairs4);
+
         // 5.3. Finding and matching
         // 5.3.1. Checking to see if a predicate matches at least one element
         if (menu.stream().anyMatch(Dish::isVegetarian)) {
@@ -352,6 +383,19 @@ public class StreamDemo {
                 .sum();
         System.out.println("calories2: " + calories2);
 
+        // The same sum over an off-heap store, read through a flyweight cursor without per-row garbage
+        DishStore dishStore = new DishStore(menu);
+        // calories3: 4200
+        System.out.println("calories3: " + dishStore.sumCalories());
+        // vegetarianCalories: 1550
+        long[] vegetarianCalories = new long[1];
+        dishStore.forEach(cursor -> {
+            if (cursor.isVegetarian()) {
+                vegetarianCalories[0] += cursor.getCalories();
+            }
+        });
+        System.out.println("vegetarianCalories: " + vegetarianCalories[0]);
+
         // Converting back to a stream of objects
         IntStream intStream = menu.stream()
                 .mapToInt(Dish::getCalories);
@@ -389,6 +433,12 @@ public class StreamDemo {
                         .filter(c -> c[2] % 1 == 0 && c[2] <= 100)
                 )
                 .forEach(n -> System.out.println((int) n[0] + ", " + (int) n[1] + ", " + (int) n[2]));
+        System.out.println("--------------------------------");
+
+        // Euclid's formula generates the triples directly, in time proportional to their number
+        PythagoreanTriples.forEach(100, (a, b, c) -> System.out.println(a + ", " + b + ", " + c));
+        // triples with c <= 1000000: 1980642
+        System.out.println("triples with c <= 1000000: " + PythagoreanTriples.count(1_000_000));
 
         // 5.7. Building streams
         // 5.7.1. Streams from values
@@ -410,6 +460,17 @@ public class StreamDemo {
             e.printStackTrace();
         }
 
+        // the same count, memory-mapped and tokenized in place by several workers, plus the frequencies
+        try {
+            WordStatistics statistics = WordStatistics.of(Paths.get("src/main/java/com/chris/chap5/test.txt"));
+            // distinctWords: 14, totalWords: 16
+            System.out.println("distinctWords: " + statistics.distinctWords() + ", totalWords: " + statistics.totalWords());
+            // mostFrequent: [hello=3, This=1, is=1]
+            System.out.println("mostFrequent: " + statistics.mostFrequent(3));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
         // 5.7.4. Streams from functions: creating infinite streams!
         // Iterate
         Stream.iterate(0, t -> t + 2).limit(5).forEach(System.out::println);
@@ -422,6 +483,19 @@ public class StreamDemo {
                 .limit(10)
                 .forEach(n -> System.out.println(n[0]));
 
+        // no tuple per element, split by jumping ahead, and F(47) no longer overflows silently
+        // fibonacci: [0, 1, 1, 2, 3, 5, 8, 13, 21, 34]
+        System.out.println("fibonacci: " + Arrays.toString(Fibonacci.longs(0, 10).toArray()));
+        // F(92): 7540113804746346429
+        System.out.println("F(92): " + Fibonacci.fib(92));
+        // F(100): 354224848179261915075
+        System.out.println("F(100): " + Fibonacci.fibExact(100));
+        // digits of F(0) .. F(9999): 10449845
+        System.out.println("digits of F(0) .. F(9999): " + Fibonacci.bigIntegers(0, 10_000)
+                .parallel()
+                .mapToInt(n -> n.toString().length())
+                .sum());
+
         // Generate
         // :: means @FunctionalInterface
         Stream.generate(Math::random)
@@ -0,0 +1,281 @@
+package com.chris.chap5;
+
+import com.chris.chap3.MappedFileProcessor;
+import com.chris.chap4.TopK;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This is description.
+ * Distinct word count and word frequencies of a file, for corpora far larger than
+ * Files.lines(...).flatMap(line -> Arrays.stream(line.split(" "))).distinct().count() can handle (5.7.3).
+ * The file is memory-mapped and processed in newline-aligned chunks by a pool of workers
+ * (MappedFileProcessor); each worker tokenizes the mapped bytes in place and counts the words in its own
+ * hash table keyed by byte slices, so no String is created per word. The workers' tables are then merged.
+ * Words are separated by runs of whitespace (space, tab, CR, LF, FF, VT), so unlike split(" ") a double space
+ * doesn't produce an empty word and a tab does separate words. Words are compared byte for byte (UTF-8).
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 20:50
+ */
+public class WordStatistics {
+    private final WordTable table;
+
+    private WordStatistics(WordTable table) {
+        this.table = table;
+    }
+
+    public static WordStatistics of(Path path) throws IOException {
+        return of(path, ForkJoinPool.commonPool());
+    }
+
+    public static WordStatistics of(Path path, ForkJoinPool pool) throws IOException {
+        return new WordStatistics(MappedFileProcessor.processFile(path, Tokenizer::new, WordTable::merge, pool));
+    }
+
+    public int distinctWords() {
+        return table.size;
+    }
+
+    public long totalWords() {
+        return table.total;
+    }
+
+    public long frequency(String word) {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        int entry = table.find(bytes, hash(bytes));
+        return entry < 0 ? 0 : table.counts[entry];
+    }
+
+    /**
+     * All words with their frequencies; creates one String per distinct word.
+     */
+    public Map<String, Long> frequencies() {
+        Map<String, Long> frequencies = new HashMap<>(table.size * 2);
+        for (int entry = 0; entry < table.size; entry++) {
+            frequencies.put(table.word(entry), table.counts[entry]);
+        }
+        return frequencies;
+    }
+
+    /**
+     * The k most frequent words, most frequent first; ties in order of first appearance.
+     */
+    public List<Map.Entry<String, Long>> mostFrequent(int k) {
+        long[] counts = table.counts;
+        return IntStream.range(0, table.size)
+                .boxed()
+                .collect(TopK.largest(k, Comparator.comparingLong((Integer entry) -> counts[entry])))
+                .stream()
+                .map(entry -> new AbstractMap.SimpleImmutableEntry<>(table.word(entry), counts[entry]))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0x811c9dc5;
+        for (byte b : bytes) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return hash;
+    }
+
+    /**
+     * Splits each line into words and counts them, hashing each word while scanning it.
+     */
+    private static class Tokenizer implements MappedFileProcessor.LineProcessor<WordTable> {
+        private final WordTable table = new WordTable();
+
+        @Override
+        public void processLine(ByteBuffer buffer, int start, int end) {
+            int i = start;
+            while (i < end) {
+                while (i < end && isWhitespace(buffer.get(i))) {
+                    i++;
+                }
+                int wordStart = i;
+                // FNV-1a, same as hash(byte[])
+                int hash = 0x811c9dc5;
+                while (i < end) {
+                    byte b = buffer.get(i);
+                    if (isWhitespace(b)) {
+                        break;
+                    }
+                    hash = (hash ^ b) * 0x01000193;
+                    i++;
+                }
+                if (i > wordStart) {
+                    table.add(buffer, wordStart, i, hash);
+                }
+            }
+        }
+
+        @Override
+        public WordTable result() {
+            return table;
+        }
+    }
+
+    /**
+     * Open addressing over entry numbers; an entry's word bytes are copied once into a byte arena.
+     */
+    private static class WordTable {
+        private int[] slots = new int[1 << 10];
+        private int[] hashes = new int[256];
+        private int[] offsets = new int[256];
+        private int[] lengths = new int[256];
+        private long[] counts = new long[256];
+        private byte[] arena = new byte[1 << 12];
+        private int arenaSize;
+        private int size;
+        private long total;
+
+        void add(ByteBuffer buffer, int start, int end, int hash) {
+            total++;
+            int mask = slots.length - 1;
+            int length = end - start;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entry < 0) {
+                    entry = newEntry(hash, length, 1);
+                    for (int i = 0; i < length; i++) {
+                        arena[offsets[entry] + i] = buffer.get(start + i);
+                    }
+                    slots[slot] = entry + 1;
+                    growIfNeeded();
+                    return;
+                }
+                if (hashes[entry] == hash && lengths[entry] == length && equals(entry, buffer, start)) {
+                    counts[entry]++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Adds the other table's counts to this one, returns this.
+         */
+        WordTable merge(WordTable other) {
+            for (int entry = 0; entry < other.size; entry++) {
+                add(other.arena, other.offsets[entry], other.lengths[entry], other.hashes[entry], other.counts[entry]);
+            }
+            total += other.total;
+            return this;
+        }
+
+        int find(byte[] word, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entry < 0) {
+                    return -1;
+                }
+                if (hashes[entry] == hash && lengths[entry] == word.length && equals(entry, word, 0)) {
+                    return entry;
+                }
+            }
+        }
+
+        String word(int entry) {
+            return new String(arena, offsets[entry], lengths[entry], StandardCharsets.UTF_8);
+        }
+
+        private void add(byte[] bytes, int offset, int length, int hash, long count) {
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entry < 0) {
+                    entry = newEntry(hash, length, count);
+                    System.arraycopy(bytes, offset, arena, offsets[entry], length);
+                    slots[slot] = entry + 1;
+                    growIfNeeded();
+                    return;
+                }
+                if (hashes[entry] == hash && lengths[entry] == length && equals(entry, bytes, offset)) {
+                    counts[entry] += count;
+                    return;
+                }
+            }
+        }
+
+        private boolean equals(int entry, ByteBuffer buffer, int start) {
+            int offset = offsets[entry];
+            for (int i = 0; i < lengths[entry]; i++) {
+                if (arena[offset + i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean equals(int entry, byte[] bytes, int start) {
+            int offset = offsets[entry];
+            for (int i = 0; i < lengths[entry]; i++) {
+                if (arena[offset + i] != bytes[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Appends an entry and reserves its bytes in the arena.
+         */
+        private int newEntry(int hash, int length, long count) {
+            if (size == hashes.length) {
+                int capacity = size * 2;
+                hashes = Arrays.copyOf(hashes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+            }
+            int entry = size++;
+            hashes[entry] = hash;
+            offsets[entry] = arenaSize;
+            lengths[entry] = length;
+            counts[entry] = count;
+            arenaSize += length;
+            return entry;
+        }
+
+        private static int spread(int hash) {
+            // FNV-1a's low bits alone are weak, fold the high bits in
+            return hash ^ (hash >>> 16);
+        }
+
+        private void growIfNeeded() {
+            // keep the load factor below 1/2
+            if (size * 2 <= slots.length) {
+                return;
+            }
+            int[] grown = new int[slots.length * 2];
+            int mask = grown.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = spread(hashes[entry]) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = entry + 1;
+            }
+            slots = grown;
+        }
+    }
+}
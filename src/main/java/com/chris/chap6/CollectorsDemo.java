@@ -175,6 +175,19 @@ public class CollectorsDemo {
         CollectorsDemo collectorsDemo = new CollectorsDemo();
         Map<Boolean, List<Integer>> partitionPrimes = collectorsDemo.partitionPrimes(100);
         System.out.println("partitionPrimes: " + partitionPrimes);
+
+        // The same transactions in primitive columns: each question is a loop over one or two int arrays
+        TransactionTable table = new TransactionTable(transactions);
+        // transactionsIn2011: [{Trader:Brian in Cambridge, year: 2011, value:300}, {Trader:Raoul in Cambridge, year: 2011, value:400}]
+        System.out.println("transactionsIn2011: " + table.toTransactions(table.sortByValue(table.year(2011))));
+        // tradersFromCambridge: [Alan, Brian, Raoul]
+        System.out.println("tradersFromCambridge: " + table.traderNames("Cambridge"));
+        // highestValue: OptionalInt[1000]
+        System.out.println("highestValue: " + table.maxValue(table.all()));
+        // valuesFromCambridge: 2650
+        System.out.println("valuesFromCambridge: " + table.sumValue(table.city("Cambridge")));
+        // valueByTraderIn2012: {Raoul=1000, Mario=1410, Alan=950}
+        System.out.println("valueByTraderIn2012: " + table.sumValueByTrader(table.year(2012)));
     }
 
     /**
@@ -0,0 +1,414 @@
+package com.chris.chap6;
+
+import com.chris.chap6.CollectorsDemo.Trader;
+import com.chris.chap6.CollectorsDemo.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * This is description.
+ * Transactions stored column-wise: year, value and trader id in primitive int arrays, the traders and their
+ * cities in dictionaries, so "transactions in 2011 sorted by value", "traders from Cambridge" or
+ * "highest value" become tight loops over one or two int arrays instead of passes over Transaction objects
+ * reaching their Trader through a pointer.
+ * Filters return the selected rows as a BitSet, which can be combined with and/or/andNot before
+ * aggregating, grouping or sorting. Equality and range filters on a column run a dedicated branch-free loop
+ * comparing the ints directly; arbitrary IntPredicates are supported too, through one shared and therefore
+ * slower call site. Large tables are scanned in parallel, in chunks of 64K rows; a chunk
+ * covers whole 64-bit words of the selection, so the workers never write to the same word.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 21:30
+ */
+public class TransactionTable {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    // smaller tables are scanned sequentially
+    private static final int PARALLEL_THRESHOLD = 4 * CHUNK_ROWS;
+
+    // columns
+    private int[] years = new int[16];
+    private int[] values = new int[16];
+    private int[] traderIds = new int[16];
+    private int size;
+
+    // dictionaries
+    private final List<Trader> traders = new ArrayList<>();
+    private int[] traderCityIds = new int[16];
+    private final Map<List<String>, Integer> traderIdsByNameAndCity = new HashMap<>();
+    private final List<String> cities = new ArrayList<>();
+    private final Map<String, Integer> cityIds = new HashMap<>();
+
+    public TransactionTable() {
+    }
+
+    public TransactionTable(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            add(transaction);
+        }
+    }
+
+    public int add(Transaction transaction) {
+        return add(traderId(transaction.getTrader()), transaction.getYear(), transaction.getValue());
+    }
+
+    public int add(String traderName, String city, int year, int value) {
+        return add(traderId(new Trader(traderName, city)), year, value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getYear(int row) {
+        return years[checkRow(row)];
+    }
+
+    public int getValue(int row) {
+        return values[checkRow(row)];
+    }
+
+    public Trader getTrader(int row) {
+        return traders.get(traderIds[checkRow(row)]);
+    }
+
+    public Transaction toTransaction(int row) {
+        return new Transaction(getTrader(row), getYear(row), getValue(row));
+    }
+
+    public List<Transaction> toTransactions(int[] rows) {
+        List<Transaction> transactions = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            transactions.add(toTransaction(row));
+        }
+        return transactions;
+    }
+
+    public BitSet all() {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
+    }
+
+    public BitSet year(int year) {
+        return selectRange(years, year, 1);
+    }
+
+    /**
+     * The transactions with minInclusive <= year < maxExclusive.
+     */
+    public BitSet yearBetween(int minInclusive, int maxExclusive) {
+        return selectRange(years, minInclusive, span(minInclusive, maxExclusive));
+    }
+
+    public BitSet value(int value) {
+        return selectRange(values, value, 1);
+    }
+
+    /**
+     * The transactions with minInclusive <= value < maxExclusive.
+     */
+    public BitSet valuesBetween(int minInclusive, int maxExclusive) {
+        return selectRange(values, minInclusive, span(minInclusive, maxExclusive));
+    }
+
+    /**
+     * Any condition on the year; prefer year and yearBetween, which don't call a predicate per row.
+     */
+    public BitSet years(IntPredicate yearPredicate) {
+        return select(years, yearPredicate);
+    }
+
+    /**
+     * Any condition on the value; prefer value and valuesBetween, which don't call a predicate per row.
+     */
+    public BitSet values(IntPredicate valuePredicate) {
+        return select(values, valuePredicate);
+    }
+
+    /**
+     * The transactions of traders based in the city.
+     */
+    public BitSet city(String city) {
+        Integer cityId = cityIds.get(city);
+        boolean[] selectedTraders = new boolean[traders.size()];
+        if (cityId != null) {
+            for (int traderId = 0; traderId < selectedTraders.length; traderId++) {
+                selectedTraders[traderId] = traderCityIds[traderId] == cityId;
+            }
+        }
+        return selectTraders(selectedTraders);
+    }
+
+    public BitSet trader(String name) {
+        boolean[] selectedTraders = new boolean[traders.size()];
+        for (int traderId = 0; traderId < selectedTraders.length; traderId++) {
+            selectedTraders[traderId] = traders.get(traderId).getName().equals(name);
+        }
+        return selectTraders(selectedTraders);
+    }
+
+    /**
+     * The names of the traders based in the city, sorted; a dictionary lookup, no row is read.
+     */
+    public List<String> traderNames(String city) {
+        TreeSet<String> names = new TreeSet<>();
+        for (Trader trader : traders) {
+            if (trader.getCity().equals(city)) {
+                names.add(trader.getName());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    public List<String> cities() {
+        return new ArrayList<>(cities);
+    }
+
+    public long sumValue(BitSet rows) {
+        long[] words = words(rows);
+        return chunks(words.length << 6).mapToLong(chunk -> {
+            long sum = 0;
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    sum += values[(w << 6) + Long.numberOfTrailingZeros(word)];
+                }
+            }
+            return sum;
+        }).sum();
+    }
+
+    public OptionalInt maxValue(BitSet rows) {
+        long[] words = words(rows);
+        long max = chunks(words.length << 6).mapToLong(chunk -> {
+            long chunkMax = Long.MIN_VALUE;
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    chunkMax = Math.max(chunkMax, values[(w << 6) + Long.numberOfTrailingZeros(word)]);
+                }
+            }
+            return chunkMax;
+        }).max().orElse(Long.MIN_VALUE);
+        return max == Long.MIN_VALUE ? OptionalInt.empty() : OptionalInt.of((int) max);
+    }
+
+    public OptionalInt minValue(BitSet rows) {
+        long[] words = words(rows);
+        long min = chunks(words.length << 6).mapToLong(chunk -> {
+            long chunkMin = Long.MAX_VALUE;
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    chunkMin = Math.min(chunkMin, values[(w << 6) + Long.numberOfTrailingZeros(word)]);
+                }
+            }
+            return chunkMin;
+        }).min().orElse(Long.MAX_VALUE);
+        return min == Long.MAX_VALUE ? OptionalInt.empty() : OptionalInt.of((int) min);
+    }
+
+    /**
+     * The sum of the values of the selected rows per trader name, in trader insertion order.
+     */
+    public Map<String, Long> sumValueByTrader(BitSet rows) {
+        long[] sums = sumValuePerTraderId(rows);
+        Map<String, Long> byTrader = new LinkedHashMap<>();
+        for (int traderId = 0; traderId < traders.size(); traderId++) {
+            if (sums[2 * traderId + 1] > 0) {
+                byTrader.merge(traders.get(traderId).getName(), sums[2 * traderId], Long::sum);
+            }
+        }
+        return byTrader;
+    }
+
+    public Map<String, Long> sumValueByCity(BitSet rows) {
+        long[] sums = sumValuePerTraderId(rows);
+        Map<String, Long> byCity = new LinkedHashMap<>();
+        for (int traderId = 0; traderId < traders.size(); traderId++) {
+            if (sums[2 * traderId + 1] > 0) {
+                byCity.merge(cities.get(traderCityIds[traderId]), sums[2 * traderId], Long::sum);
+            }
+        }
+        return byCity;
+    }
+
+    /**
+     * The selected rows sorted by value, rows with equal values in row order.
+     */
+    public int[] sortByValue(BitSet rows) {
+        long[] keys = new long[rows.get(0, size).cardinality()];
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            // the value in the high half, signed, the row number in the low half
+            keys[count++] = (long) values[row] << 32 | row;
+        }
+        if (count >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keys, 0, count);
+        } else {
+            Arrays.sort(keys, 0, count);
+        }
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    private int add(int traderId, int year, int value) {
+        if (size == years.length) {
+            int newCapacity = size + (size >> 1);
+            years = Arrays.copyOf(years, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            traderIds = Arrays.copyOf(traderIds, newCapacity);
+        }
+        years[size] = year;
+        values[size] = value;
+        traderIds[size] = traderId;
+        return size++;
+    }
+
+    private int traderId(Trader trader) {
+        List<String> key = Arrays.asList(trader.getName(), trader.getCity());
+        Integer traderId = traderIdsByNameAndCity.get(key);
+        if (traderId != null) {
+            return traderId;
+        }
+        traderId = traders.size();
+        traders.add(trader);
+        traderIdsByNameAndCity.put(key, traderId);
+        if (traderId == traderCityIds.length) {
+            traderCityIds = Arrays.copyOf(traderCityIds, traderId * 2);
+        }
+        traderCityIds[traderId] = cityIds.computeIfAbsent(trader.getCity(), city -> {
+            cities.add(city);
+            return cities.size() - 1;
+        });
+        return traderId;
+    }
+
+    /**
+     * The number of ints in [minInclusive, maxExclusive), 0 for an empty range.
+     */
+    private static long span(int minInclusive, int maxExclusive) {
+        return Math.max(0, (long) maxExclusive - minInclusive);
+    }
+
+    /**
+     * The rows whose column value lies in [min, min + span), span at most 2^32. As unsigned 32-bit numbers,
+     * value - min < span exactly for those, which the sign of the 64-bit difference gives without a branch.
+     */
+    private BitSet selectRange(int[] column, int min, long span) {
+        long[] words = new long[(size + 63) >>> 6];
+        chunks(size).forEach(chunk -> {
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                int base = w << 6;
+                int bits = Math.min(64, size - base);
+                long word = 0;
+                for (int bit = 0; bit < bits; bit++) {
+                    long offset = (column[base + bit] - min) & 0xFFFFFFFFL;
+                    word |= ((offset - span) >>> 63) << bit;
+                }
+                words[w] = word;
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    private BitSet select(int[] column, IntPredicate predicate) {
+        long[] words = new long[(size + 63) >>> 6];
+        chunks(size).forEach(chunk -> {
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                int base = w << 6;
+                int bits = Math.min(64, size - base);
+                long word = 0;
+                for (int bit = 0; bit < bits; bit++) {
+                    word |= (predicate.test(column[base + bit]) ? 1L : 0L) << bit;
+                }
+                words[w] = word;
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    private BitSet selectTraders(boolean[] selectedTraders) {
+        long[] words = new long[(size + 63) >>> 6];
+        chunks(size).forEach(chunk -> {
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                int base = w << 6;
+                int bits = Math.min(64, size - base);
+                long word = 0;
+                for (int bit = 0; bit < bits; bit++) {
+                    word |= (selectedTraders[traderIds[base + bit]] ? 1L : 0L) << bit;
+                }
+                words[w] = word;
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Per trader id, the sum of the values at 2 * id and the number of rows at 2 * id + 1.
+     */
+    private long[] sumValuePerTraderId(BitSet rows) {
+        long[] words = words(rows);
+        int length = traders.size() * 2;
+        return chunks(words.length << 6).mapToObj(chunk -> {
+            long[] sums = new long[length];
+            for (int w = firstWord(chunk), to = lastWord(chunk, words.length); w < to; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    int traderId = traderIds[row];
+                    sums[2 * traderId] += values[row];
+                    sums[2 * traderId + 1]++;
+                }
+            }
+            return sums;
+        }).reduce(new long[length], (a, b) -> {
+            long[] sums = new long[length];
+            for (int i = 0; i < length; i++) {
+                sums[i] = a[i] + b[i];
+            }
+            return sums;
+        });
+    }
+
+    /**
+     * The words of the selection, rows past the end of the table dropped.
+     */
+    private long[] words(BitSet rows) {
+        return rows.length() > size ? rows.get(0, size).toLongArray() : rows.toLongArray();
+    }
+
+    /**
+     * The chunk numbers covering rows 0 .. rows - 1, parallel for large tables.
+     */
+    private static IntStream chunks(int rows) {
+        IntStream chunks = IntStream.range(0, (rows + CHUNK_ROWS - 1) >>> CHUNK_SHIFT);
+        return rows >= PARALLEL_THRESHOLD ? chunks.parallel() : chunks;
+    }
+
+    private static int firstWord(int chunk) {
+        return chunk << (CHUNK_SHIFT - 6);
+    }
+
+    private static int lastWord(int chunk, int wordCount) {
+        return Math.min(wordCount, (chunk + 1) << (CHUNK_SHIFT - 6));
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+        return row;
+    }
+}
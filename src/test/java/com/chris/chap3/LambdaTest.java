@@ -0,0 +1,132 @@
+package com.chris.chap3;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * This is description.
+ * The primitive map/filter/forEach paths must not box: once the result buffer is sized, a call allocates a
+ * small fixed amount (an iterator at most), the same for 1,000 as for 100,000 elements.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 21:40
+ */
+public class LambdaTest {
+    private static final int SMALL = 1_000;
+    private static final int LARGE = 100_000;
+    // one boxed value per element would be 16 bytes times n
+    private static final long MAX_BYTES_PER_CALL = 256;
+    private static final int WARM_UP_CALLS = 50;
+    private static final int MEASURED_CALLS = 20;
+
+    private static ThreadMXBean threadBean;
+
+    @BeforeClass
+    public static void threadAllocationMeasurable() {
+        assumeTrue("per-thread allocation is not measurable on this JVM",
+                ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void mapToIntAllocatesFixedAmountPerCall() {
+        for (int n : new int[]{SMALL, LARGE}) {
+            List<String> words = words(n);
+            PrimitiveBuffer.OfInt result = new PrimitiveBuffer.OfInt(n);
+            assertFixedAllocation("mapToInt", n, () -> {
+                result.clear();
+                Lambda.mapToInt(words, String::length, result);
+            });
+        }
+    }
+
+    @Test
+    public void mapToLongAllocatesFixedAmountPerCall() {
+        for (int n : new int[]{SMALL, LARGE}) {
+            List<String> words = words(n);
+            PrimitiveBuffer.OfLong result = new PrimitiveBuffer.OfLong(n);
+            assertFixedAllocation("mapToLong", n, () -> {
+                result.clear();
+                Lambda.mapToLong(words, String::hashCode, result);
+            });
+        }
+    }
+
+    @Test
+    public void mapToDoubleAllocatesFixedAmountPerCall() {
+        for (int n : new int[]{SMALL, LARGE}) {
+            List<String> words = words(n);
+            PrimitiveBuffer.OfDouble result = new PrimitiveBuffer.OfDouble(n);
+            assertFixedAllocation("mapToDouble", n, () -> {
+                result.clear();
+                Lambda.mapToDouble(words, word -> word.length() * 0.5, result);
+            });
+        }
+    }
+
+    @Test
+    public void filterAllocatesFixedAmountPerCall() {
+        for (int n : new int[]{SMALL, LARGE}) {
+            int[] values = values(n);
+            PrimitiveBuffer.OfInt result = new PrimitiveBuffer.OfInt(n);
+            assertFixedAllocation("filter", n, () -> {
+                result.clear();
+                Lambda.filter(values, (int i) -> i % 2 == 0, result);
+            });
+        }
+    }
+
+    @Test
+    public void forEachAllocatesFixedAmountPerCall() {
+        for (int n : new int[]{SMALL, LARGE}) {
+            int[] values = values(n);
+            PrimitiveBuffer.OfInt buffer = new PrimitiveBuffer.OfInt(n);
+            for (int value : values) {
+                buffer.add(value);
+            }
+            long[] sum = new long[1];
+            assertFixedAllocation("forEach(int[])", n, () -> Lambda.forEach(values, (int i) -> sum[0] += i));
+            assertFixedAllocation("forEach(OfInt)", n, () -> Lambda.forEach(buffer, (int i) -> sum[0] += i));
+        }
+    }
+
+    private static void assertFixedAllocation(String path, int n, Runnable call) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            call.run();
+        }
+        long bytesPerCall = (threadBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS;
+        assertTrue(path + " allocated " + bytesPerCall + " bytes per call of " + n + " elements",
+                bytesPerCall <= MAX_BYTES_PER_CALL);
+    }
+
+    private static List<String> words(int n) {
+        List<String> words = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            words.add("word" + i);
+        }
+        return words;
+    }
+
+    private static int[] values(int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+}
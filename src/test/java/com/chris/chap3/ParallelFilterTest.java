@@ -0,0 +1,91 @@
+package com.chris.chap3;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This is description.
+ * The fork/join filter against a plain sequential filter, over random inputs with many chunk sizes and pools.
+ *
+ * @author Chris Lee
+ * @date 2026/10/17 21:50
+ */
+public class ParallelFilterTest {
+    private static final int[] SIZES = {0, 1, 2, 63, 1_000, 100_003, 1_000_000};
+    private static final int[] THRESHOLDS = {1, 2, 7, 1_000, ParallelFilter.DEFAULT_THRESHOLD, 1 << 20};
+    private static final int[] PARALLELISMS = {1, 2, 4, 8};
+
+    @Test
+    public void sameResultAsSequentialFilter() {
+        Random random = new Random(42);
+        List<Predicate<Integer>> predicates = new ArrayList<>();
+        predicates.add(i -> true);
+        predicates.add(i -> false);
+        predicates.add(i -> i % 2 == 0);
+        // selective: about one element in a thousand
+        predicates.add(i -> i % 1000 == 0);
+        for (int parallelism : PARALLELISMS) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int size : SIZES) {
+                    List<Integer> list = randomList(random, size);
+                    for (int threshold : THRESHOLDS) {
+                        // one task per element only for small lists
+                        if ((long) size / threshold > 100_000) {
+                            continue;
+                        }
+                        for (Predicate<Integer> p : predicates) {
+                            assertEquals("size " + size + ", threshold " + threshold + ", parallelism " + parallelism,
+                                    sequentialFilter(list, p), ParallelFilter.filter(list, p, pool, threshold));
+                        }
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void linkedListInput() {
+        List<Integer> list = new LinkedList<>(randomList(new Random(7), 50_000));
+        Predicate<Integer> p = i -> i % 3 == 0;
+        assertEquals(sequentialFilter(list, p), ParallelFilter.filter(list, p, ForkJoinPool.commonPool(), 1_000));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sequentialResultIsUnmodifiable() {
+        ParallelFilter.filter(randomList(new Random(1), 10), i -> true, ForkJoinPool.commonPool(), 100).add(1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parallelResultIsUnmodifiable() {
+        ParallelFilter.filter(randomList(new Random(1), 10), i -> true, ForkJoinPool.commonPool(), 2).add(1);
+    }
+
+    private static List<Integer> randomList(Random random, int size) {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(random.nextInt());
+        }
+        return list;
+    }
+
+    private static <T> List<T> sequentialFilter(List<T> list, Predicate<? super T> p) {
+        List<T> result = new ArrayList<>();
+        for (T t : list) {
+            if (p.test(t)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+}